@@ -0,0 +1,47 @@
+package bench;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Random;
+
+/**
+ * Datos y utilidades comunes de los benchmarks: matrices aleatorias con semilla fija (los resultados
+ * son comparables entre ejecuciones) y formas de operandos.
+ */
+final class BenchData {
+    private BenchData() {
+    }
+
+    /**
+     * Dimensiones (filas de A, columnas de A = filas de B, columnas de B) de cada forma para un tamaño n:
+     * square = n x n x n; tall = A alta y estrecha (4n x n/4), wide = B ancha (n/4 x n x 4n).
+     * Las tres hacen n^3 multiplicaciones-suma: solo cambia la forma (y con ella el uso de la caché).
+     */
+    static int[] dims(String shape, int n) {
+        switch (shape) {
+            case "square": return new int[]{ n, n, n };
+            case "tall": return new int[]{ 4 * n, Math.max(1, n / 4), n };
+            case "wide": return new int[]{ Math.max(1, n / 4), n, 4 * n };
+            default: throw new IllegalArgumentException("Forma desconocida: " + shape);
+        }
+    }
+
+    static int[][] randomMatrix(int rows, int cols, long seed) {
+        Random rnd = new Random(seed);
+        int[][] M = new int[rows][cols];
+        for (int i = 0; i < rows; i++) for (int j = 0; j < cols; j++) M[i][j] = rnd.nextInt(10);
+        return M;
+    }
+
+    // Puerto TCP libre en esta máquina (para el registro RMI y el transporte binario en proceso)
+    static int freePort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    // Los servidores en proceso no deben escribir logs por fila en la salida del benchmark
+    static void quietServer() {
+        System.setProperty("server.log.level", "OFF");
+    }
+}
@@ -0,0 +1,34 @@
+package bench;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanza los benchmarks con los mismos argumentos que org.openjdk.jmh.Main, pero guardando siempre los
+ * resultados en JSON (bench-results/jmh-AAAAMMDD-HHMMSS.json si no se indica -rff) para poder comparar
+ * una ejecución con la anterior antes de desplegar.
+ * Ejemplos: BenchMain (todo), BenchMain KernelBenchmarks, BenchMain "Transport.*" -p size=256 -f 1
+ */
+public class BenchMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        if (cmd.getIncludes().isEmpty()) builder.include("bench\\..*Benchmarks");
+        if (!cmd.getResult().hasValue()) {
+            File dir = new File("bench-results");
+            dir.mkdirs();
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            builder.result(new File(dir, "jmh-" + stamp + ".json").getPath());
+        }
+        if (!cmd.getResultFormat().hasValue()) builder.resultFormat(ResultFormatType.JSON);
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,110 @@
+package bench;
+
+import client.BinaryTransportStub;
+import client.ParallelMultiplier;
+import java.rmi.NoSuchObjectException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import server.BinaryServer;
+import server.MatrixMultiplierImpl;
+
+/**
+ * multiplyDistributed de extremo a extremo contra 1-4 servidores levantados en este proceso (un registro
+ * RMI con MatrixService1..N, cada uno con su MatrixMultiplierImpl y su pool). Los servidores comparten los
+ * cores de la máquina: la medida es el coste del reparto y del transporte, no el escalado con más máquinas.
+ * El motor (hilos, stubs y B preparada) se reutiliza entre iteraciones, como en una aplicación real.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DistributedBenchmarks {
+    @Param({"1", "2", "3", "4"})
+    public int servers;
+
+    @Param({"512", "1000"})
+    public int size;
+
+    @Param({"rmi", "binary"})
+    public String transport;
+
+    // Workers por endpoint en el cliente
+    @Param({"2"})
+    public int workers;
+
+    private final List<MatrixMultiplierImpl> impls = new ArrayList<>();
+    private final List<BinaryServer> binaries = new ArrayList<>();
+    private Registry registry;
+    private ParallelMultiplier pm;
+    private List<ParallelMultiplier.ServerInfo> endpoints;
+    private int[][] A, B;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchData.quietServer();
+        int port = BenchData.freePort();
+        registry = LocateRegistry.createRegistry(port);
+        endpoints = new ArrayList<>();
+        for (int i = 1; i <= servers; i++) {
+            MatrixMultiplierImpl impl = new MatrixMultiplierImpl();
+            impls.add(impl);
+            registry.rebind("MatrixService" + i, impl);
+            endpoints.add(new ParallelMultiplier.ServerInfo("127.0.0.1", port, "MatrixService" + i));
+        }
+        pm = new ParallelMultiplier();
+        if (transport.equals("binary")) {
+            // El cliente usa un único puerto binario para todos los servidores: cada endpoint tiene su propio
+            // BinaryServer y la fábrica de stubs elige el suyo por nombre de servicio
+            List<Integer> ports = new ArrayList<>();
+            for (MatrixMultiplierImpl impl : impls) {
+                BinaryServer b = new BinaryServer(impl, "127.0.0.1", BenchData.freePort());
+                b.start();
+                binaries.add(b);
+                ports.add(b.port());
+            }
+            pm.setStubFactory(si -> new BinaryTransportStub(si.host,
+                    ports.get(Integer.parseInt(si.serviceName.substring("MatrixService".length())) - 1)));
+        }
+        A = BenchData.randomMatrix(size, size, 42);
+        B = BenchData.randomMatrix(size, size, 43);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pm.close();
+        for (BinaryServer b : binaries) b.close();
+        for (MatrixMultiplierImpl impl : impls) unexport(impl);
+        unexport(registry);
+    }
+
+    private static void unexport(java.rmi.Remote r) {
+        try {
+            UnicastRemoteObject.unexportObject(r, true);
+        } catch (NoSuchObjectException ignored) {
+        }
+    }
+
+    @Benchmark
+    public int[][] multiplyDistributed() throws Exception {
+        return pm.multiplyDistributed(A, B, endpoints, workers, null, false, 0);
+    }
+}
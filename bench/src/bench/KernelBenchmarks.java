@@ -0,0 +1,106 @@
+package bench;
+
+import client.ConcurrentMultiplier;
+import client.SequentialMultiplier;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import server.MatrixMultiplierImpl;
+import shared.BlockResult;
+import shared.Matrix;
+
+/**
+ * Kernels de cálculo por tamaño y forma de los operandos:
+ * - sequential: client.SequentialMultiplier
+ * - concurrent: client.ConcurrentMultiplier con 1, 2, 4 y 8 hilos
+ * - serverBlock: las tareas ForkJoin de bloque del servidor (MatrixMultiplierImpl.multiplyBlock llamado
+ *   en proceso, sin RMI); threads = 0 usa todo el pool compartido
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class KernelBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Operands {
+        @Param({"256", "512", "1024"})
+        public int size;
+
+        @Param({"square", "tall", "wide"})
+        public String shape;
+
+        int[][] A, B;
+        Matrix Am, Bm;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int[] d = BenchData.dims(shape, size);
+            A = BenchData.randomMatrix(d[0], d[1], 42);
+            B = BenchData.randomMatrix(d[1], d[2], 43);
+            Am = Matrix.of(A);
+            Bm = Matrix.of(B);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        ConcurrentMultiplier concurrent;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            concurrent = new ConcurrentMultiplier(threads);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"0", "2"})
+        public int serverThreads;
+
+        MatrixMultiplierImpl impl;
+
+        @Setup(Level.Trial)
+        public void setup() throws RemoteException {
+            BenchData.quietServer();
+            impl = new MatrixMultiplierImpl();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws RemoteException {
+            UnicastRemoteObject.unexportObject(impl, true);
+        }
+    }
+
+    @Benchmark
+    public int[][] sequential(Operands o) {
+        return new SequentialMultiplier().multiply(o.A, o.B);
+    }
+
+    @Benchmark
+    public int[][] concurrent(Operands o, Threads t) {
+        return t.concurrent.multiply(o.A, o.B, t.threads);
+    }
+
+    @Benchmark
+    public BlockResult serverBlock(Operands o, Server s) throws RemoteException {
+        return s.impl.multiplyBlock(o.Am, o.Bm, 0, 0, s.serverThreads);
+    }
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import client.BinaryTransportStub;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Naming;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import server.BinaryServer;
+import server.MatrixMultiplierImpl;
+import shared.BlockResult;
+import shared.Matrix;
+import shared.MatrixMultiplier;
+
+/**
+ * Ida y vuelta de un bloque contra un servidor en este mismo proceso (registro RMI y transporte binario
+ * por loopback): multiplyBlock envía B en cada llamada y multiplyBlockPrepared solo su handle.
+ * La diferencia entre ambos es el coste de enviar B; frente a KernelBenchmarks.serverBlock, el del transporte.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TransportBenchmarks {
+    @Param({"rmi", "binary"})
+    public String transport;
+
+    // B es size x size; el bloque de A tiene blockRows x size
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"16", "128"})
+    public int blockRows;
+
+    private MatrixMultiplierImpl impl;
+    private Registry registry;
+    private BinaryServer binary;
+    private MatrixMultiplier stub;
+    private Matrix A_block, B;
+    private String bHandle;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchData.quietServer();
+        impl = new MatrixMultiplierImpl();
+        if (transport.equals("rmi")) {
+            int port = BenchData.freePort();
+            registry = LocateRegistry.createRegistry(port);
+            registry.rebind("MatrixService", impl);
+            stub = (MatrixMultiplier) Naming.lookup("//127.0.0.1:" + port + "/MatrixService");
+        } else {
+            binary = new BinaryServer(impl, "127.0.0.1", BenchData.freePort());
+            binary.start();
+            stub = new BinaryTransportStub("127.0.0.1", binary.port());
+        }
+        A_block = Matrix.of(BenchData.randomMatrix(blockRows, size, 42));
+        B = Matrix.of(BenchData.randomMatrix(size, size, 43));
+        bHandle = stub.prepareB(B);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (stub instanceof BinaryTransportStub) ((BinaryTransportStub) stub).close();
+        if (binary != null) binary.close();
+        if (registry != null) unexport(registry);
+        unexport(impl);
+    }
+
+    private static void unexport(java.rmi.Remote r) {
+        try {
+            UnicastRemoteObject.unexportObject(r, true);
+        } catch (NoSuchObjectException ignored) {
+        }
+    }
+
+    @Benchmark
+    public BlockResult multiplyBlock() throws Exception {
+        return stub.multiplyBlock(A_block, B, 0, 0, 0);
+    }
+
+    @Benchmark
+    public BlockResult multiplyBlockPrepared() throws Exception {
+        return stub.multiplyBlockPrepared(bHandle, A_block, 0, 0, 0);
+    }
+}
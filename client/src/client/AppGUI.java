@@ -60,6 +60,10 @@ public class AppGUI extends JFrame {
     }
 
     private long startTimeSeq;
+    // Motor distribuido compartido por todas las ejecuciones (reutiliza conexiones, hilos y rendimiento observado)
+    private ParallelMultiplier parallelEngine;
+    // Ejecución paralela en curso: al lanzar otra se cancela (también en los servidores)
+    private java.util.concurrent.CompletableFuture<int[][]> parallelRun;
 
     public AppGUI() {
         super("Multiplicador de Matrices");
@@ -354,7 +358,7 @@ public class AppGUI extends JFrame {
     }
     public void appendSuccess(String msg) { appendStyled("[ÉXITO] ✔ " + msg, LogType.SUCCESS); }
     private void appendError(String msg) { appendStyled("[ERROR] ✖ " + msg, LogType.ERROR); }
-    private void appendWarning(String msg) { appendStyled("[ADVERTENCIA] ⚠ " + msg, LogType.WARNING); }
+    public void appendWarning(String msg) { appendStyled("[ADVERTENCIA] ⚠ " + msg, LogType.WARNING); }
 
     // --------- RESET panel de hilos
     private void resetThreadPanel() {
@@ -721,7 +725,7 @@ public class AppGUI extends JFrame {
 
         appendInfo("Iniciando ejecución paralelo distribuido con " + finalTotalWorkers + " hilos locales y remotos...\n");
 
-        ParallelMultiplier pm = new ParallelMultiplier();
+        ParallelMultiplier pm = parallelEngine();
         long startTime = System.currentTimeMillis();
 
         ProgressCallback cb = new ProgressCallback() {
@@ -814,21 +818,32 @@ public class AppGUI extends JFrame {
             }
         };
 
-        // Ejecutar en background
-        new Thread(() -> {
-            try {
-                int[][] result = pm.multiplyDistributed(A, B, servers, finalTotalWorkers, cb, includeLocal, serverThreadCount);
-                long endTime = System.currentTimeMillis();
-                SwingUtilities.invokeLater(() -> {
-                    lblTimePar.setText("Paralelo: " + (endTime - startTime) + " ms");
-                    display(tblC, result);
-                    appendSuccess("Ejecución paralelo distribuido completada en " + (endTime - startTime) + " ms\n");
-                });
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                SwingUtilities.invokeLater(() -> appendError("Error en ejecución paralelo: " + ex.getMessage() + "\n"));
-            }
-        }).start();
+        if (parallelRun != null && !parallelRun.isDone()) {
+            parallelRun.cancel(true);
+            appendWarning("Ejecución paralela anterior cancelada.\n");
+        }
+        // Ejecutar en background (en los hilos del motor)
+        java.util.concurrent.CompletableFuture<int[][]> run = pm.multiplyAsync(A, B, servers, finalTotalWorkers, cb, includeLocal, serverThreadCount);
+        parallelRun = run;
+        run.whenComplete((result, ex) -> {
+            long endTime = System.currentTimeMillis();
+            SwingUtilities.invokeLater(() -> {
+                if (run.isCancelled()) return;
+                if (ex != null) {
+                    Throwable cause = (ex instanceof java.util.concurrent.CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+                    appendError("Error en ejecución paralelo: " + cause.getMessage() + "\n");
+                    return;
+                }
+                lblTimePar.setText("Paralelo: " + (endTime - startTime) + " ms");
+                display(tblC, result);
+                appendSuccess("Ejecución paralelo distribuido completada en " + (endTime - startTime) + " ms\n");
+            });
+        });
+    }
+
+    private synchronized ParallelMultiplier parallelEngine() {
+        if (parallelEngine == null) parallelEngine = new ParallelMultiplier();
+        return parallelEngine;
     }
 
     /** Muestra la matriz completa en una nueva ventana con scroll, zebra y resaltados */
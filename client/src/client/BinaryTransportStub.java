@@ -0,0 +1,315 @@
+package client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import shared.BinaryProtocol;
+import shared.BlockChunk;
+import shared.BlockResult;
+import shared.ElementType;
+import shared.JobCancelledException;
+import shared.Matrix;
+import shared.MatrixMultiplier;
+import shared.ServerBusyException;
+import shared.ServerCapabilities;
+import shared.TypedMatrix;
+import shared.UnknownBHandleException;
+
+/**
+ * MatrixMultiplier sobre el protocolo binario (shared.BinaryProtocol) en lugar de RMI.
+ *
+ * Mantiene un pool de conexiones: cada llamada toma una libre (o abre una nueva), así varios
+ * workers pueden usar el mismo stub en paralelo. Los errores de red y del servidor se lanzan
+ * como RemoteException, igual que con RMI, el handle desconocido como UnknownBHandleException y el
+ * trabajo cancelado como JobCancelledException y la cola llena como ServerBusyException.
+ * Las variantes int[][] se convierten a Matrix en el cliente.
+ */
+public class BinaryTransportStub implements MatrixMultiplier, Closeable {
+    private final String host;
+    private final int port;
+    private final ConcurrentLinkedDeque<BinaryProtocol.Connection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    public BinaryTransportStub(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public String endpoint() {
+        return host + ":" + port;
+    }
+
+    private interface Request {
+        void write(BinaryProtocol.Connection c);
+    }
+
+    private interface Response<T> {
+        T read(BinaryProtocol.Connection c) throws IOException;
+    }
+
+    // Envía una petición y lee la respuesta usando una conexión del pool
+    private <T> T call(byte op, Request request, Response<T> response) throws RemoteException {
+        if (closed) throw new RemoteException("Stub binario cerrado: " + endpoint());
+        BinaryProtocol.Connection c = idle.pollFirst();
+        byte status;
+        T result = null;
+        String message = null;
+        try {
+            if (c == null) c = new BinaryProtocol.Connection(SocketChannel.open(new InetSocketAddress(host, port)));
+            c.begin();
+            c.putByte(op);
+            request.write(c);
+            c.send();
+            if (!c.receive()) throw new IOException("El servidor cerró la conexión");
+            status = c.getByte();
+            if (status == BinaryProtocol.STATUS_OK) {
+                result = response.read(c);
+            } else {
+                message = c.getString();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // conexión en estado desconocido: se descarta
+            closeQuietly(c);
+            throw new RemoteException("Fallo de transporte binario con " + endpoint(), ex);
+        }
+        idle.offerFirst(c);
+        if (status == BinaryProtocol.STATUS_UNKNOWN_HANDLE) throw new UnknownBHandleException(message);
+        if (status == BinaryProtocol.STATUS_CANCELLED) throw new JobCancelledException(Long.parseLong(message));
+        if (status == BinaryProtocol.STATUS_BUSY) {
+            int sep = message.indexOf(':');
+            throw new ServerBusyException(Integer.parseInt(message.substring(0, sep)), Long.parseLong(message.substring(sep + 1)));
+        }
+        if (status != BinaryProtocol.STATUS_OK) throw new RemoteException("Error en el servidor " + endpoint() + ": " + message);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        BinaryProtocol.Connection c;
+        while ((c = idle.pollFirst()) != null) closeQuietly(c);
+    }
+
+    private static void closeQuietly(BinaryProtocol.Connection c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // --- operaciones con Matrix (las que viajan por el protocolo) ---
+
+    @Override
+    public Matrix multiply(Matrix A, Matrix B) throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY, c -> { c.putMatrix(A); c.putMatrix(B); },
+                BinaryProtocol.Connection::getMatrix);
+    }
+
+    @Override
+    public Matrix multiplyConcurrent(Matrix A, Matrix B, int threadCount) throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_CONCURRENT, c -> { c.putMatrix(A); c.putMatrix(B); c.putInt(threadCount); },
+                BinaryProtocol.Connection::getMatrix);
+    }
+
+    @Override
+    public Matrix multiplyConcurrent(long jobId, Matrix A, Matrix B, int threadCount) throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_CONCURRENT_JOB, c -> {
+            c.putLong(jobId); c.putMatrix(A); c.putMatrix(B); c.putInt(threadCount);
+        }, BinaryProtocol.Connection::getMatrix);
+    }
+
+    @Override
+    public Matrix multiplyConcurrentSegment(Matrix A_rows, Matrix B, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_SEGMENT, c -> {
+            c.putMatrix(A_rows); c.putMatrix(B);
+            c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryProtocol.Connection::getMatrix);
+    }
+
+    @Override
+    public BlockResult multiplyBlock(Matrix A_block, Matrix B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_BLOCK, c -> {
+            c.putMatrix(A_block); c.putMatrix(B);
+            c.putInt(blockIndex); c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryTransportStub::readBlockResult);
+    }
+
+    @Override
+    public BlockResult multiplyBlock(long jobId, Matrix A_block, Matrix B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_BLOCK_JOB, c -> {
+            c.putLong(jobId); c.putMatrix(A_block); c.putMatrix(B);
+            c.putInt(blockIndex); c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryTransportStub::readBlockResult);
+    }
+
+    @Override
+    public BlockResult multiplyBlockPrepared(String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_BLOCK_PREPARED, c -> {
+            c.putString(bHandle); c.putMatrix(A_block);
+            c.putInt(blockIndex); c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryTransportStub::readBlockResult);
+    }
+
+    @Override
+    public BlockResult multiplyBlockPrepared(long jobId, String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_BLOCK_PREPARED_JOB, c -> {
+            c.putLong(jobId); c.putString(bHandle); c.putMatrix(A_block);
+            c.putInt(blockIndex); c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryTransportStub::readBlockResult);
+    }
+
+    @Override
+    public String prepareB(Matrix B) throws RemoteException {
+        return call(BinaryProtocol.OP_PREPARE_B, c -> c.putMatrix(B), BinaryProtocol.Connection::getString);
+    }
+
+    @Override
+    public void clearPreparedB(String bHandle) throws RemoteException {
+        call(BinaryProtocol.OP_CLEAR_B, c -> c.putString(bHandle), c -> null);
+    }
+
+    @Override
+    public boolean hasB(String digest) throws RemoteException {
+        return call(BinaryProtocol.OP_HAS_B, c -> c.putString(digest), BinaryProtocol.Connection::getBoolean);
+    }
+
+    @Override
+    public Matrix multiplyStrassen(Matrix A, Matrix B, int cutoff) throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_STRASSEN, c -> { c.putMatrix(A); c.putMatrix(B); c.putInt(cutoff); },
+                BinaryProtocol.Connection::getMatrix);
+    }
+
+    @Override
+    public ServerCapabilities getCapabilities() throws RemoteException {
+        return call(BinaryProtocol.OP_GET_CAPABILITIES, c -> { }, BinaryProtocol.Connection::getCapabilities);
+    }
+
+    @Override
+    public String getMetrics() throws RemoteException {
+        return call(BinaryProtocol.OP_GET_METRICS, c -> { }, BinaryProtocol.Connection::getString);
+    }
+
+    @Override
+    public long submitBlockPrepared(String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_SUBMIT_BLOCK_PREPARED, c -> {
+            c.putString(bHandle); c.putMatrix(A_block);
+            c.putInt(blockIndex); c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryProtocol.Connection::getLong);
+    }
+
+    @Override
+    public long submitBlockPrepared(long jobId, String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_SUBMIT_BLOCK_PREPARED_JOB, c -> {
+            c.putLong(jobId); c.putString(bHandle); c.putMatrix(A_block);
+            c.putInt(blockIndex); c.putInt(rowOffset); c.putInt(threadCount);
+        }, BinaryProtocol.Connection::getLong);
+    }
+
+    @Override
+    public boolean cancel(long jobId) throws RemoteException {
+        return call(BinaryProtocol.OP_CANCEL, c -> c.putLong(jobId), BinaryProtocol.Connection::getBoolean);
+    }
+
+    @Override
+    public void setJobPriority(long jobId, int priority) throws RemoteException {
+        call(BinaryProtocol.OP_SET_JOB_PRIORITY, c -> { c.putLong(jobId); c.putInt(priority); }, c -> null);
+    }
+
+    @Override
+    public String prepareBFromFile(String bPath) throws RemoteException {
+        return call(BinaryProtocol.OP_PREPARE_B_FROM_FILE, c -> c.putString(bPath), BinaryProtocol.Connection::getString);
+    }
+
+    @Override
+    public BlockResult multiplyBlockFromFile(long jobId, String aPath, int rowStart, int rowEnd, String bHandle, int threadCount)
+            throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_BLOCK_FROM_FILE, c -> {
+            c.putLong(jobId); c.putString(aPath); c.putInt(rowStart); c.putInt(rowEnd);
+            c.putString(bHandle); c.putInt(threadCount);
+        }, BinaryTransportStub::readBlockResult);
+    }
+
+    @Override
+    public String multiplyBlockFromFileToFile(long jobId, String aPath, int rowStart, int rowEnd, String bHandle,
+                                              String cPath, int threadCount) throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_BLOCK_FROM_FILE_TO_FILE, c -> {
+            c.putLong(jobId); c.putString(aPath); c.putInt(rowStart); c.putInt(rowEnd);
+            c.putString(bHandle); c.putString(cPath); c.putInt(threadCount);
+        }, BinaryProtocol.Connection::getString);
+    }
+
+    @Override
+    public BlockChunk nextChunk(long streamId, long timeoutMillis) throws RemoteException {
+        return call(BinaryProtocol.OP_NEXT_CHUNK, c -> { c.putLong(streamId); c.putLong(timeoutMillis); },
+                BinaryProtocol.Connection::getChunk);
+    }
+
+    @Override
+    public TypedMatrix multiplyTyped(TypedMatrix A, TypedMatrix B, ElementType resultType) throws RemoteException {
+        return call(BinaryProtocol.OP_MULTIPLY_TYPED, c -> { c.putTypedMatrix(A); c.putTypedMatrix(B); c.putElementType(resultType); },
+                BinaryProtocol.Connection::getTypedMatrix);
+    }
+
+    private static BlockResult readBlockResult(BinaryProtocol.Connection c) throws IOException {
+        long processingTime = c.getLong();
+        return new BlockResult(c.getMatrix(), processingTime);
+    }
+
+    // --- variantes int[][] (conversión en el cliente) ---
+
+    @Override
+    public int[][] multiply(int[][] A, int[][] B) throws RemoteException {
+        return multiply(Matrix.of(A), Matrix.of(B)).toArray();
+    }
+
+    @Override
+    public int[][] multiplyConcurrent(int[][] A, int[][] B, int threadCount) throws RemoteException {
+        return multiplyConcurrent(Matrix.of(A), Matrix.of(B), threadCount).toArray();
+    }
+
+    @Override
+    public int[][] multiplySegment(int[][] A, int[][] B, int rowStart, int rowEnd) throws RemoteException {
+        return multiply(Matrix.ofRows(A, rowStart, rowEnd), Matrix.of(B)).toArray();
+    }
+
+    @Override
+    public int[][] multiplyConcurrentSegment(int[][] A, int[][] B, int rowStart, int rowEnd, int threadCount)
+            throws RemoteException {
+        return multiplyConcurrentSegment(Matrix.ofRows(A, rowStart, rowEnd), Matrix.of(B), rowStart, threadCount).toArray();
+    }
+
+    @Override
+    public BlockResult multiplyBlock(int[][] A_block, int[][] B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        BlockResult r = multiplyBlock(Matrix.of(A_block), Matrix.of(B), blockIndex, rowOffset, threadCount);
+        return new BlockResult(r.matrix.toArray(), r.processingTimeMillis);
+    }
+
+    @Override
+    public BlockResult multiplyBlockPrepared(String bHandle, int[][] A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        BlockResult r = multiplyBlockPrepared(bHandle, Matrix.of(A_block), blockIndex, rowOffset, threadCount);
+        return new BlockResult(r.matrix.toArray(), r.processingTimeMillis);
+    }
+
+    @Override
+    public String prepareB(int[][] B) throws RemoteException {
+        return prepareB(Matrix.of(B));
+    }
+
+    @Override
+    public int[][] multiplyStrassen(int[][] A, int[][] B, int cutoff) throws RemoteException {
+        return multiplyStrassen(Matrix.of(A), Matrix.of(B), cutoff).toArray();
+    }
+}
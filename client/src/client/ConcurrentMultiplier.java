@@ -1,35 +1,73 @@
 package client;
 
 import java.util.concurrent.*;
+import shared.Matrix;
+import shared.MatrixKernel;
+import shared.MatrixKernels;
+import shared.RowLanes;
+import shared.StrassenWinograd;
+import shared.ElementType;
+import shared.TypedKernels;
+import shared.TypedMatrix;
 
 /**
  * ConcurrentMultiplier usando ForkJoin para multiplicar matrices.
  * Proporciona:
  * - multiply(A,B,threads) -> matriz completa resultado
  * - multiplyBlock(A_block,B,threads) -> multiplica solo A_block (rows x m) contra B y devuelve rows x p result
+ * - multiplyStrassen(A,B,cutoff) -> Strassen-Winograd recursivo (para n grandes, ver StrassenBenchmark)
+ * - multiplyTyped(A,B,resultType) -> matrices INT8/INT16/INT32/INT64/FLOAT32/FLOAT64 (ver shared.TypedKernels)
+ *
+ * Con useVector = true usa el kernel SIMD (jdk.incubator.vector) si está disponible; si no, el escalar por bloques.
+ *
+ * Todas las instancias comparten un único ForkJoinPool del proceso (uno por núcleo); el número de hilos
+ * pedido limita cuántos hilos de ese pool usa cada llamada (RowLanes), sin crear pools nuevos.
  */
 public class ConcurrentMultiplier {
 	
-    // NEW: pool reutilizable por instancia
-    private final ForkJoinPool pool;
+    // Pool compartido por todas las instancias (hilos daemon: no impide que termine la aplicación)
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+
+    private final ForkJoinPool pool = SHARED_POOL;
+    // Hilos por llamada cuando no se indican (threads <= 0)
+    private final int defaultThreads;
+    private final MatrixKernel kernel;
 
     // Constructores: por defecto usa cores; o se puede especificar número de hilos
     public ConcurrentMultiplier() {
         this(Runtime.getRuntime().availableProcessors());
     }
     public ConcurrentMultiplier(int threads) {
-        int useThreads = (threads <= 0) ? Runtime.getRuntime().availableProcessors() : threads;
-        this.pool = new ForkJoinPool(useThreads);
+        this(threads, false);
+    }
+    public ConcurrentMultiplier(int threads, boolean useVector) {
+        this.defaultThreads = (threads <= 0) ? Runtime.getRuntime().availableProcessors() : threads;
+        this.kernel = MatrixKernels.select(useVector ? MatrixKernels.VECTOR : MatrixKernels.BLOCKED);
+    }
+
+    // Pool de cálculo del proceso (también lo usa la calibración local de ParallelMultiplier)
+    static ForkJoinPool sharedPool() {
+        return SHARED_POOL;
+    }
+
+    // Nombre del kernel en uso ("blocked" o "vector(...)")
+    public String kernelName() {
+        return kernel.name();
     }
 
     // Multiplica matrices completas usando el pool reutilizable
     public int[][] multiply(int[][] A, int[][] B, int threads) {
         int n = A.length, p = B[0].length, m = B.length;
         int[][] C = new int[n][p];
-        int useThreads = (threads <= 0) ? pool.getParallelism() : threads;
+        int useThreads = (threads <= 0) ? defaultThreads : threads;
 
         int threshold = Math.max(1, n / (Math.max(1, useThreads) * 2));
-        pool.invoke(new MatrixMultiplyTask(A, B, C, 0, n, threshold));
+        invoke((s0, s1) -> new MatrixMultiplyTask(kernel, A, B, C, s0, s1, threshold), n, threshold, useThreads);
         return C;
     }
 
@@ -39,62 +77,73 @@ public class ConcurrentMultiplier {
         int rows = A_block.length;
         int p = B[0].length;
         int[][] Cseg = new int[rows][p];
-        int useThreads = (threads <= 0) ? pool.getParallelism() : threads;
+        int useThreads = (threads <= 0) ? defaultThreads : threads;
         int threshold = Math.max(1, rows / (Math.max(1, useThreads) * 2));
-        pool.invoke(new MatrixMultiplyBlockTask(A_block, B, Cseg, 0, rows, threshold));
+        invoke((s0, s1) -> new MatrixMultiplyBlockTask(kernel, A_block, B, Cseg, s0, s1, threshold), rows, threshold, useThreads);
         return Cseg;
     }
 
+    // Crea la tarea que calcula las filas [start, end)
+    private interface RowTasks {
+        ForkJoinTask<?> create(int start, int end);
+    }
+
+    // Filas [0, rows) en el pool compartido con como mucho useThreads hilos
+    private void invoke(RowTasks tasks, int rows, int threshold, int useThreads) {
+        if (useThreads >= pool.getParallelism()) {
+            pool.invoke(tasks.create(0, rows));
+        } else {
+            RowLanes.invoke(pool, 0, rows, useThreads, threshold, (start, end) -> tasks.create(start, end).invoke());
+        }
+    }
+
+    // Strassen-Winograd en el pool reutilizable; cutoff <= 0 => StrassenWinograd.DEFAULT_CUTOFF
+    public int[][] multiplyStrassen(int[][] A, int[][] B, int cutoff) {
+        return StrassenWinograd.multiply(pool, kernel, Matrix.of(A), Matrix.of(B), cutoff).toArray();
+    }
+
+    public TypedMatrix multiplyTyped(TypedMatrix A, TypedMatrix B, ElementType resultType) {
+        return TypedKernels.multiply(pool, A, B, resultType);
+    }
+
     // Fork/Join task for full matrix
     private static class MatrixMultiplyTask extends RecursiveAction {
+        private final MatrixKernel kernel;
         private final int[][] A, B, C;
         private final int rowStart, rowEnd, threshold;
-        MatrixMultiplyTask(int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int threshold) {
-            this.A = A; this.B = B; this.C = C;
+        MatrixMultiplyTask(MatrixKernel kernel, int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int threshold) {
+            this.kernel = kernel; this.A = A; this.B = B; this.C = C;
             this.rowStart = rowStart; this.rowEnd = rowEnd; this.threshold = threshold;
         }
         @Override
         protected void compute() {
             if (rowEnd - rowStart <= threshold) {
-                int p = B[0].length, m = B.length;
-                for (int i = rowStart; i < rowEnd; i++) {
-                    for (int j = 0; j < p; j++) {
-                        int s = 0;
-                        for (int k = 0; k < m; k++) s += A[i][k] * B[k][j];
-                        C[i][j] += s;
-                    }
-                }
+                kernel.multiply(A, B, C, rowStart, rowEnd, 0);
             } else {
                 int mid = (rowStart + rowEnd) / 2;
-                invokeAll(new MatrixMultiplyTask(A, B, C, rowStart, mid, threshold),
-                          new MatrixMultiplyTask(A, B, C, mid, rowEnd, threshold));
+                invokeAll(new MatrixMultiplyTask(kernel, A, B, C, rowStart, mid, threshold),
+                          new MatrixMultiplyTask(kernel, A, B, C, mid, rowEnd, threshold));
             }
         }
     }
 
     // Fork/Join task for A_block (rows indexed 0..rows-1)
     private static class MatrixMultiplyBlockTask extends RecursiveAction {
+        private final MatrixKernel kernel;
         private final int[][] Ablock, B, Cseg;
         private final int rowStart, rowEnd, threshold;
-        MatrixMultiplyBlockTask(int[][] Ablock, int[][] B, int[][] Cseg, int rowStart, int rowEnd, int threshold) {
-            this.Ablock = Ablock; this.B = B; this.Cseg = Cseg;
+        MatrixMultiplyBlockTask(MatrixKernel kernel, int[][] Ablock, int[][] B, int[][] Cseg, int rowStart, int rowEnd, int threshold) {
+            this.kernel = kernel; this.Ablock = Ablock; this.B = B; this.Cseg = Cseg;
             this.rowStart = rowStart; this.rowEnd = rowEnd; this.threshold = threshold;
         }
         @Override
         protected void compute() {
             if (rowEnd - rowStart <= threshold) {
-                int p = B[0].length, m = B.length;
-                for (int i = rowStart; i < rowEnd; i++) {
-                    for (int j = 0; j < p; j++) {
-                        int s = 0;
-                        for (int k = 0; k < m; k++) s += Ablock[i][k] * B[k][j];
-                        Cseg[i][j] += s;
-                    }
-                }
+                kernel.multiply(Ablock, B, Cseg, rowStart, rowEnd, 0);
             } else {
                 int mid = (rowStart + rowEnd) / 2;
-                invokeAll(new MatrixMultiplyBlockTask(Ablock, B, Cseg, rowStart, mid, threshold),
-                          new MatrixMultiplyBlockTask(Ablock, B, Cseg, mid, rowEnd, threshold));
+                invokeAll(new MatrixMultiplyBlockTask(kernel, Ablock, B, Cseg, rowStart, mid, threshold),
+                          new MatrixMultiplyBlockTask(kernel, Ablock, B, Cseg, mid, rowEnd, threshold));
             }
         }
     }
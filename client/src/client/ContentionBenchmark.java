@@ -0,0 +1,90 @@
+package client;
+
+import java.rmi.Naming;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import shared.Matrix;
+import shared.MatrixMultiplier;
+import shared.ServerBusyException;
+
+/**
+ * Rendimiento agregado del servidor con varios clientes a la vez (control de admisión de ComputeScheduler).
+ * Cada cliente simulado pide bloques multiplyBlockPrepared con threadCount > 0, como ParallelMultiplier,
+ * durante unos segundos; se mide el total de filas por segundo y cuántas llamadas rechazó el servidor.
+ * Con admisión el total debería mantenerse plano al subir el número de clientes.
+ *
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.ContentionBenchmark [ip] [n] [filasPorBloque] [segundos]
+ */
+public class ContentionBenchmark {
+    public static void main(String[] args) throws Exception {
+        String serverIp = (args.length > 0) ? args[0] : "127.0.0.1";
+        int n = (args.length > 1) ? Integer.parseInt(args[1]) : 512;
+        int blockRows = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+        long seconds = (args.length > 3) ? Long.parseLong(args[3]) : 3;
+
+        MatrixMultiplier stub = (MatrixMultiplier) Naming.lookup(String.format("//%s:1099/MatrixService", serverIp));
+        Matrix A = randomMatrix(n, 42), B = randomMatrix(n, 43);
+        String handle = stub.prepareB(B);
+
+        run(stub, handle, A, blockRows, 1, 1); // calentamiento
+        for (int clients : new int[]{1, 2, 4, 8}) {
+            run(stub, handle, A, blockRows, clients, seconds);
+        }
+        stub.clearPreparedB(handle);
+    }
+
+    private static void run(MatrixMultiplier stub, String handle, Matrix A, int blockRows, int clients, long seconds)
+            throws InterruptedException {
+        AtomicLong rows = new AtomicLong();
+        AtomicInteger busy = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            final int offset = c * blockRows;
+            Thread t = new Thread(() -> {
+                try {
+                    int start = offset % A.rows();
+                    while (System.nanoTime() < deadline) {
+                        int end = Math.min(A.rows(), start + blockRows);
+                        try {
+                            stub.multiplyBlockPrepared(handle, A.view(start, 0, end - start, A.cols()), 0, start, threadCount);
+                            rows.addAndGet(end - start);
+                        } catch (RemoteException ex) {
+                            ServerBusyException b = (ex instanceof ServerBusyException) ? (ServerBusyException) ex
+                                    : (ex instanceof ServerException && ex.detail instanceof ServerBusyException)
+                                    ? (ServerBusyException) ex.detail : null;
+                            if (b == null) {
+                                errors.incrementAndGet();
+                                return;
+                            }
+                            busy.incrementAndGet();
+                            Thread.sleep(b.retryAfterMillis);
+                        }
+                        start = (end >= A.rows()) ? 0 : end;
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+            t.start();
+        }
+        long t0 = System.nanoTime();
+        done.await();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("clientes=%d  filas/s=%.0f  rechazadas (ocupado)=%d  errores=%d%n",
+                clients, rows.get() / secs, busy.get(), errors.get());
+    }
+
+    private static Matrix randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        Matrix M = new Matrix(n, n);
+        for (int i = 0; i < n * n; i++) M.data()[i] = rnd.nextInt(10);
+        return M;
+    }
+}
@@ -0,0 +1,169 @@
+package client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import shared.BlockChunk;
+import shared.BlockResult;
+import shared.BlockedKernel;
+import shared.Matrix;
+import shared.MatrixMultiplier;
+import shared.ServerCapabilities;
+
+/**
+ * Comprueba la tolerancia a fallos de ParallelMultiplier con servidores simulados dentro del proceso
+ * (sin RMI): servidores que fallan, que se cuelgan, que no existen o que son lentos, y servidores con
+ * B preparada que devuelven el bloque en streaming (nextChunk) y pueden cortar el stream a medias.
+ * En todos los escenarios el resultado debe coincidir con el secuencial.
+ *
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.FaultInjectionHarness [n]
+ */
+public class FaultInjectionHarness {
+    // Comportamiento de un servidor simulado
+    // STREAM*: con B preparada y el bloque en trozos por nextChunk; STREAM_BREAK entrega un trozo y falla,
+    // STREAM_SLOW tarda en cada trozo (para que otro endpoint le dispute el chunk)
+    private enum Fault { NONE, FAIL, STALL, SLOW, UNREACHABLE, STREAM, STREAM_BREAK, STREAM_SLOW }
+
+    // Filas de cada trozo de un stream simulado
+    private static final int STREAM_ROWS = 4;
+
+    public static void main(String[] args) throws Exception {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 256;
+        int[][] A = randomMatrix(n, 42), B = randomMatrix(n, 43);
+        int[][] expected = new SequentialMultiplier().multiply(A, B);
+
+        boolean ok = true;
+        ok &= run("Un servidor falla siempre", A, B, expected, false, false, Fault.NONE, Fault.FAIL);
+        ok &= run("Un servidor se cuelga", A, B, expected, false, false, Fault.NONE, Fault.STALL);
+        ok &= run("Un servidor inaccesible", A, B, expected, false, false, Fault.NONE, Fault.UNREACHABLE);
+        ok &= run("Todos fallan, con endpoint local", A, B, expected, true, false, Fault.FAIL, Fault.STALL);
+        ok &= run("Todos fallan, sin endpoint local", A, B, expected, false, false, Fault.FAIL, Fault.FAIL);
+        ok &= run("Servidor lento con especulación", A, B, expected, false, true, Fault.NONE, Fault.SLOW);
+        ok &= run("Streaming", A, B, expected, false, false, Fault.STREAM, Fault.STREAM);
+        ok &= run("Stream cortado, con endpoint local", A, B, expected, true, false, Fault.STREAM_BREAK);
+        ok &= run("Stream cortado, sin endpoint local", A, B, expected, false, false, Fault.STREAM_BREAK, Fault.STREAM_BREAK);
+        ok &= run("Stream lento contra local, especulación", A, B, expected, true, true, Fault.STREAM_SLOW);
+        System.out.println(ok ? "Todos los escenarios correctos" : "HAY ESCENARIOS CON RESULTADO INCORRECTO");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean run(String name, int[][] A, int[][] B, int[][] expected,
+                               boolean includeLocal, boolean speculation, Fault... faults) throws Exception {
+        List<ParallelMultiplier.ServerInfo> servers = new ArrayList<>();
+        for (int i = 0; i < faults.length; i++) {
+            servers.add(new ParallelMultiplier.ServerInfo("fake" + i, 1099, faults[i].name()));
+        }
+        ParallelMultiplier pm = new ParallelMultiplier();
+        pm.setFaultTolerance(2, 2, 500);
+        pm.setSpeculation(speculation, 0.5);
+        pm.setStubFactory(si -> fakeServer(Fault.valueOf(si.serviceName)));
+
+        long t0 = System.nanoTime();
+        int[][] C = pm.multiplyDistributed(A, B, servers, 2, null, includeLocal, 1);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        boolean equal = Arrays.deepEquals(C, expected);
+        System.out.printf("%-40s %5d ms  correcto: %b%n", name, ms, equal);
+        return equal;
+    }
+
+    // Servidor simulado: implementa multiplyBlock y getCapabilities; los STREAM* además prepareB,
+    // submitBlockPrepared y nextChunk
+    private static MatrixMultiplier fakeServer(Fault fault) {
+        if (fault == Fault.UNREACHABLE) throw new IllegalStateException("Connection refused (simulado)");
+        boolean streaming = fault.name().startsWith("STREAM");
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong nextStreamId = new AtomicLong();
+        Map<Long, FakeStream> streams = new ConcurrentHashMap<>();
+        Matrix[] preparedB = new Matrix[1];
+        BlockedKernel kernel = BlockedKernel.defaults();
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getCapabilities":
+                    return new ServerCapabilities(1, Runtime.getRuntime().maxMemory(), 1.0, kernel.name());
+                case "hasB":
+                case "cancel":
+                    return false;
+                case "prepareB":
+                    if (!streaming) return null;
+                    preparedB[0] = (args[0] instanceof Matrix) ? (Matrix) args[0] : Matrix.of((int[][]) args[0]);
+                    return "fake-B";
+                case "setJobPriority":
+                    return null;
+                case "submitBlockPrepared": {
+                    // submitBlockPrepared(jobId, bHandle, A_block, ...) o submitBlockPrepared(bHandle, A_block, ...)
+                    int a = (args[0] instanceof Long) ? 2 : 1;
+                    // Cada stream cortado deja en C un trozo de filas correctas antes de fallar
+                    boolean breaks = fault == Fault.STREAM_BREAK;
+                    long id = nextStreamId.incrementAndGet();
+                    streams.put(id, new FakeStream(kernel.multiply((Matrix) args[a], preparedB[0]), breaks,
+                            fault == Fault.STREAM_SLOW));
+                    return id;
+                }
+                case "nextChunk":
+                    return streams.get((Long) args[0]).next();
+                case "multiplyBlock":
+                    break;
+                case "toString":
+                    return "fake-" + fault;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new RemoteException("Operación no simulada: " + method.getName());
+            }
+            int call = calls.incrementAndGet();
+            // Los dos primeros bloques salen bien para que el fallo llegue a mitad del trabajo
+            if (call > 2) {
+                if (fault == Fault.FAIL) throw new RemoteException("Fallo simulado en la llamada " + call);
+                if (fault == Fault.STALL) Thread.sleep(60_000);
+            }
+            if (fault == Fault.SLOW) Thread.sleep(300);
+            // multiplyBlock(jobId, A_block, B, ...) o multiplyBlock(A_block, B, ...)
+            int a = (args[0] instanceof Long) ? 1 : 0;
+            Matrix Ablock = (Matrix) args[a], Bm = (Matrix) args[a + 1];
+            long t0 = System.nanoTime();
+            Matrix C = kernel.multiply(Ablock, Bm);
+            return new BlockResult(C, (System.nanoTime() - t0) / 1_000_000);
+        };
+        return (MatrixMultiplier) Proxy.newProxyInstance(MatrixMultiplier.class.getClassLoader(),
+                new Class<?>[]{MatrixMultiplier.class}, handler);
+    }
+
+    // Stream simulado: entrega el bloque ya calculado en trozos de STREAM_ROWS filas; si breaks, el
+    // stream falla después del primer trozo (que ya se copió en C)
+    private static final class FakeStream {
+        private final int[][] C;
+        private final boolean breaks, slow;
+        private int next;
+
+        FakeStream(Matrix C, boolean breaks, boolean slow) {
+            this.C = C.toArray();
+            this.breaks = breaks;
+            this.slow = slow;
+        }
+
+        synchronized BlockChunk next() throws Exception {
+            if (breaks && next > 0) throw new RemoteException("Stream cortado tras " + next + " filas (simulado)");
+            if (slow) Thread.sleep(50);
+            int end = Math.min(C.length, next + STREAM_ROWS);
+            BlockChunk chunk = new BlockChunk(next, Matrix.ofRows(C, next, end), end == C.length, 0);
+            next = end;
+            return chunk;
+        }
+    }
+
+    private static int[][] randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        int[][] M = new int[n][n];
+        for (int i = 0; i < n; i++) for (int j = 0; j < n; j++) M[i][j] = rnd.nextInt(10);
+        return M;
+    }
+}
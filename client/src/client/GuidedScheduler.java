@@ -0,0 +1,117 @@
+package client;
+
+/**
+ * Reparto dinámico de filas en chunks (guided self-scheduling).
+ *
+ * Cada worker pide el siguiente chunk cuando termina el anterior. El tamaño del chunk es
+ * ceil(filasRestantes / (2 * workers)), con un mínimo de minChunkRows: grande al principio
+ * (pocas llamadas) y cada vez más pequeño al final, de modo que un endpoint lento solo retrasa
+ * el trabajo con un chunk pequeño en lugar de fijar el tiempo total del trabajo.
+ *
+ * Con next(weight) cada worker pide en proporción a su parte de la capacidad total
+ * (weight = capacidad del worker / capacidad de todos los workers): el chunk es
+ * ceil(filasRestantes * weight / 2). Con pesos iguales (1/workers) coincide con next().
+ *
+ * Tolerancia a fallos: cada chunk entregado queda "en curso" hasta complete(); si falla, requeue()
+ * lo devuelve a la cola de reintentos (que se reparte antes que las filas nuevas) o, si ya agotó los
+ * reintentos remotos, a la cola solo-local. awaitWork() deja esperar a los workers mientras haya
+ * chunks en curso que puedan volver a la cola.
+ */
+public class GuidedScheduler {
+    public static class Chunk {
+        public final int index;     // número de chunk global (para logs)
+        public final int startRow;  // inclusive
+        public final int endRow;    // exclusive
+        public final int failures;  // intentos fallidos anteriores de estas filas
+        Chunk(int index, int startRow, int endRow, int failures) {
+            this.index = index; this.startRow = startRow; this.endRow = endRow; this.failures = failures;
+        }
+        public int rows() { return endRow - startRow; }
+        Chunk retry() { return new Chunk(index, startRow, endRow, failures + 1); }
+    }
+
+    private final int totalRows;
+    private final int workers;
+    private final int minChunkRows;
+    private int nextRow = 0;
+    private int nextIndex = 0;
+    private int inFlight = 0;
+    private final java.util.ArrayDeque<Chunk> retries = new java.util.ArrayDeque<>();
+    private final java.util.ArrayDeque<Chunk> localOnly = new java.util.ArrayDeque<>();
+
+    public GuidedScheduler(int totalRows, int workers, int minChunkRows) {
+        this.totalRows = totalRows;
+        this.workers = Math.max(1, workers);
+        this.minChunkRows = Math.max(1, minChunkRows);
+    }
+
+    // Siguiente chunk con peso uniforme, o null si ya no quedan filas
+    public Chunk next() {
+        return next(1.0 / workers);
+    }
+
+    // Siguiente chunk para un worker con la fracción 'weight' de la capacidad total, o null si ya no quedan filas
+    public Chunk next(double weight) {
+        return next(weight, false);
+    }
+
+    // Como next(weight); local = true también entrega los chunks de la cola solo-local (y les da prioridad)
+    public synchronized Chunk next(double weight, boolean local) {
+        Chunk c;
+        if (local && !localOnly.isEmpty()) {
+            c = localOnly.poll();
+        } else if (!retries.isEmpty()) {
+            c = retries.poll();
+        } else {
+            int remaining = totalRows - nextRow;
+            if (remaining <= 0) return null;
+            int size = (int) Math.ceil(remaining * weight / 2.0);
+            size = Math.min(remaining, Math.max(minChunkRows, size));
+            c = new Chunk(nextIndex++, nextRow, nextRow + size, 0);
+            nextRow += size;
+        }
+        inFlight++;
+        return c;
+    }
+
+    // El chunk entregado por next() terminó bien
+    public synchronized void complete(Chunk c) {
+        inFlight--;
+        notifyAll();
+    }
+
+    // El chunk falló: vuelve a la cola de reintentos, o a la solo-local si localOnly
+    public synchronized void requeue(Chunk c, boolean localOnly) {
+        inFlight--;
+        (localOnly ? this.localOnly : retries).add(c.retry());
+        notifyAll();
+    }
+
+    // El chunk no llegó a calcularse (servidor ocupado): vuelve a la cola de reintentos sin contar como fallo
+    public synchronized void putBack(Chunk c) {
+        inFlight--;
+        retries.addFirst(c);
+        notifyAll();
+    }
+
+    /**
+     * Espera hasta timeoutMillis a que haya trabajo para este worker.
+     * Devuelve false si ya no puede haberlo: no quedan filas ni reintentos y nada está en curso
+     * (los chunks solo-local no cuentan para un worker remoto).
+     */
+    public synchronized boolean awaitWork(boolean local, long timeoutMillis) throws InterruptedException {
+        if (hasWork(local)) return true;
+        if (inFlight == 0) return false;
+        wait(timeoutMillis);
+        return hasWork(local) || inFlight > 0;
+    }
+
+    // true si todas las filas se entregaron y terminaron
+    public synchronized boolean isDone() {
+        return nextRow >= totalRows && retries.isEmpty() && localOnly.isEmpty() && inFlight == 0;
+    }
+
+    private boolean hasWork(boolean local) {
+        return nextRow < totalRows || !retries.isEmpty() || (local && !localOnly.isEmpty());
+    }
+}
@@ -0,0 +1,342 @@
+package client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Traza de un trabajo de ParallelMultiplier (multiplyDistributed / multiplyAsync con un JobTrace):
+ * marcas System.nanoTime de cada fase del trabajo (conectar, preparar B, reparto, resto local) y de cada
+ * intento de cada bloque, con su desglose: copia de las filas de A, llamada remota, tiempo de cálculo
+ * que informa el servidor y copia del resultado en C.
+ *
+ * Desde el cliente no se puede separar la serialización, la red y la espera en la cola del servidor: van
+ * juntas como "transferencia" (llamada - cálculo del servidor - copia en C). La cola se ve en las métricas
+ * del servidor (getMetrics, matrix_queue_wait_us).
+ *
+ * summary() da la ruta crítica, la utilización y el tiempo ocioso por endpoint y el desglose por fase;
+ * toJson() y toChromeTrace() exportan los registros (el segundo se abre en chrome://tracing o Perfetto).
+ */
+public final class JobTrace {
+    // Resultado de un intento de bloque
+    public static final String OK = "ok", LOST = "descartado", FAILED = "fallo", BUSY = "ocupado", CANCELLED = "cancelado";
+    // Nombres de las fases que registra ParallelMultiplier
+    static final String PHASE_CONNECT = "conectar", PHASE_PREPARE_B = "preparar B",
+            PHASE_DISTRIBUTE = "reparto", PHASE_LOCAL_REST = "resto local";
+
+    /** Fase del trabajo (en el hilo que lo coordina). */
+    public static final class Phase {
+        public final String name;
+        public final long startNanos, endNanos;
+
+        Phase(String name, long startNanos, long endNanos) {
+            this.name = name; this.startNanos = startNanos; this.endNanos = endNanos;
+        }
+    }
+
+    /** Un intento de calcular un bloque (chunk) de filas en un endpoint. */
+    public static final class Block {
+        public final String endpoint;
+        public final int endpointIndex, worker, chunk, startRow, endRow;
+        public final long startNanos, endNanos;
+        // Copia de las filas de A a una Matrix plana y copia del resultado en C (0 en local)
+        public final long copyANanos, copyCNanos;
+        // Hasta las primeras filas recibidas, desde startNanos (-1 si no llegó ninguna)
+        public final long firstRowsNanos;
+        // Cálculo según el servidor (o el cálculo local)
+        public final long serverMillis;
+        public final String outcome;
+
+        Block(String endpoint, int endpointIndex, int worker, int chunk, int startRow, int endRow,
+              long startNanos, long endNanos, long copyANanos, long copyCNanos, long firstRowsNanos,
+              long serverMillis, String outcome) {
+            this.endpoint = endpoint; this.endpointIndex = endpointIndex; this.worker = worker; this.chunk = chunk;
+            this.startRow = startRow; this.endRow = endRow;
+            this.startNanos = startNanos; this.endNanos = endNanos;
+            this.copyANanos = copyANanos; this.copyCNanos = copyCNanos; this.firstRowsNanos = firstRowsNanos;
+            this.serverMillis = serverMillis; this.outcome = outcome;
+        }
+
+        public long durationNanos() {
+            return endNanos - startNanos;
+        }
+
+        // Serialización + red + cola del servidor (lo que queda de la llamada remota)
+        public long transferNanos() {
+            if ("local".equals(endpoint)) return 0;
+            return Math.max(0, durationNanos() - copyANanos - copyCNanos - serverMillis * 1_000_000L);
+        }
+    }
+
+    private final long originNanos = System.nanoTime();
+    private volatile long endNanos;
+    private final ConcurrentLinkedQueue<Phase> phases = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Block> blocks = new ConcurrentLinkedQueue<>();
+    // Workers por endpoint (los fija ParallelMultiplier al repartir)
+    private volatile String[] endpoints = new String[0];
+    private volatile int workersPerEndpoint = 1;
+
+    void phase(String name, long startNanos) {
+        phases.add(new Phase(name, startNanos, System.nanoTime()));
+    }
+
+    void block(Block b) {
+        blocks.add(b);
+    }
+
+    void endpoints(String[] keys, int workersPerEndpoint) {
+        this.endpoints = keys.clone();
+        this.workersPerEndpoint = workersPerEndpoint;
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public List<Phase> phases() {
+        List<Phase> list = new ArrayList<>(phases);
+        list.sort(Comparator.comparingLong(p -> p.startNanos));
+        return list;
+    }
+
+    public List<Block> blocks() {
+        List<Block> list = new ArrayList<>(blocks);
+        list.sort(Comparator.comparingLong(b -> b.startNanos));
+        return list;
+    }
+
+    // Desde que se creó la traza hasta que terminó el trabajo (o hasta ahora si sigue en curso)
+    public long wallNanos() {
+        long end = endNanos;
+        return ((end == 0) ? System.nanoTime() : end) - originNanos;
+    }
+
+    /** Uso de un endpoint durante la fase de reparto. */
+    public static final class EndpointUsage {
+        public final String endpoint;
+        public final int workers, blocks, rows;
+        public final long busyNanos, idleNanos;
+        public final double utilization;
+
+        EndpointUsage(String endpoint, int workers, int blocks, int rows, long busyNanos, long idleNanos, double utilization) {
+            this.endpoint = endpoint; this.workers = workers; this.blocks = blocks; this.rows = rows;
+            this.busyNanos = busyNanos; this.idleNanos = idleNanos; this.utilization = utilization;
+        }
+    }
+
+    // Ocupado = suma de los intentos de sus workers; disponible = workers x duración del reparto
+    public List<EndpointUsage> endpointUsage() {
+        long window = phaseNanos(PHASE_DISTRIBUTE);
+        if (window <= 0) window = wallNanos();
+        String[] keys = endpoints;
+        List<EndpointUsage> result = new ArrayList<>();
+        for (int e = 0; e < keys.length; e++) {
+            long busy = 0;
+            int count = 0, rows = 0;
+            for (Block b : blocks) {
+                if (b.endpointIndex != e) continue;
+                busy += b.durationNanos();
+                if (OK.equals(b.outcome)) {
+                    count++;
+                    rows += b.endRow - b.startRow;
+                }
+            }
+            long available = window * workersPerEndpoint;
+            result.add(new EndpointUsage(keys[e], workersPerEndpoint, count, rows, busy,
+                    Math.max(0, available - busy), (available > 0) ? Math.min(1.0, busy / (double) available) : 0));
+        }
+        return result;
+    }
+
+    private long phaseNanos(String name) {
+        long total = 0;
+        for (Phase p : phases) if (p.name.equals(name)) total += p.endNanos - p.startNanos;
+        return total;
+    }
+
+    /**
+     * Ruta crítica: las fases secuenciales del trabajo más el worker que terminó el último dentro del reparto
+     * (sus bloques y los huecos entre ellos, que son espera de la cola de chunks).
+     */
+    public String criticalPath() {
+        StringBuilder sb = new StringBuilder();
+        Block last = null;
+        for (Block b : blocks) if (last == null || b.endNanos > last.endNanos) last = b;
+        for (Phase p : phases()) {
+            if (sb.length() > 0) sb.append(" -> ");
+            if (p.name.equals(PHASE_DISTRIBUTE) && last != null) {
+                long busy = 0;
+                int count = 0;
+                for (Block b : blocks) {
+                    if (b.endpointIndex == last.endpointIndex && b.worker == last.worker) {
+                        busy += b.durationNanos();
+                        count++;
+                    }
+                }
+                long lane = last.endNanos - p.startNanos;
+                sb.append(String.format("worker %d en %s: %d bloques, %s ocupado + %s esperando",
+                        last.worker + 1, last.endpoint, count, ms(busy), ms(Math.max(0, lane - busy))));
+            } else {
+                sb.append(p.name).append(' ').append(ms(p.endNanos - p.startNanos));
+            }
+        }
+        return sb.toString();
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Trabajo: %s en total%n", ms(wallNanos())));
+        for (Phase p : phases()) {
+            sb.append(String.format("  %-12s %s%n", p.name, ms(p.endNanos - p.startNanos)));
+        }
+        sb.append("Ruta crítica: ").append(criticalPath()).append(System.lineSeparator());
+        for (EndpointUsage u : endpointUsage()) {
+            sb.append(String.format("  %s: %d bloques, %d filas, %d workers, utilización %.0f%%, ocioso %s%n",
+                    u.endpoint, u.blocks, u.rows, u.workers, u.utilization * 100, ms(u.idleNanos)));
+        }
+        long copyA = 0, transfer = 0, server = 0, copyC = 0;
+        Map<String, Integer> outcomes = new LinkedHashMap<>();
+        for (Block b : blocks) {
+            copyA += b.copyANanos;
+            copyC += b.copyCNanos;
+            server += b.serverMillis * 1_000_000L;
+            transfer += b.transferNanos();
+            outcomes.merge(b.outcome, 1, Integer::sum);
+        }
+        sb.append(String.format("Suma por fase: copia de A %s, transferencia+cola %s, cálculo %s, copia en C %s%n",
+                ms(copyA), ms(transfer), ms(server), ms(copyC)));
+        sb.append("Intentos: ").append(outcomes).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+
+    // --- Exportación ---
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"wallMicros\":").append(wallNanos() / 1000);
+        sb.append(",\"criticalPath\":");
+        string(sb, criticalPath());
+        sb.append(",\"phases\":[");
+        boolean first = true;
+        for (Phase p : phases()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"name\":");
+            string(sb, p.name);
+            sb.append(",\"startMicros\":").append(micros(p.startNanos))
+              .append(",\"durMicros\":").append((p.endNanos - p.startNanos) / 1000).append('}');
+        }
+        sb.append("],\"blocks\":[");
+        first = true;
+        for (Block b : blocks()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"endpoint\":");
+            string(sb, b.endpoint);
+            sb.append(",\"worker\":").append(b.worker)
+              .append(",\"chunk\":").append(b.chunk)
+              .append(",\"startRow\":").append(b.startRow)
+              .append(",\"endRow\":").append(b.endRow)
+              .append(",\"startMicros\":").append(micros(b.startNanos))
+              .append(",\"durMicros\":").append(b.durationNanos() / 1000)
+              .append(",\"copyAMicros\":").append(b.copyANanos / 1000)
+              .append(",\"transferMicros\":").append(b.transferNanos() / 1000)
+              .append(",\"serverMillis\":").append(b.serverMillis)
+              .append(",\"copyCMicros\":").append(b.copyCNanos / 1000)
+              .append(",\"firstRowsMicros\":").append((b.firstRowsNanos < 0) ? -1 : b.firstRowsNanos / 1000)
+              .append(",\"outcome\":");
+            string(sb, b.outcome);
+            sb.append('}');
+        }
+        sb.append("],\"endpoints\":[");
+        first = true;
+        for (EndpointUsage u : endpointUsage()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"endpoint\":");
+            string(sb, u.endpoint);
+            sb.append(",\"workers\":").append(u.workers)
+              .append(",\"blocks\":").append(u.blocks)
+              .append(",\"rows\":").append(u.rows)
+              .append(",\"busyMicros\":").append(u.busyNanos / 1000)
+              .append(",\"idleMicros\":").append(u.idleNanos / 1000)
+              .append(",\"utilization\":").append(String.format(java.util.Locale.ROOT, "%.4f", u.utilization))
+              .append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Formato Trace Event de Chrome: un proceso por endpoint (pid = índice + 1; 0 = fases del trabajo) y un hilo
+     * por worker. Cada intento es un evento "X" con su desglose en args.
+     */
+    public String toChromeTrace() {
+        StringBuilder sb = new StringBuilder("{\"traceEvents\":[");
+        sb.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":0,\"args\":{\"name\":\"trabajo\"}}");
+        String[] keys = endpoints;
+        for (int e = 0; e < keys.length; e++) {
+            sb.append(",{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":").append(e + 1).append(",\"args\":{\"name\":");
+            string(sb, keys[e]);
+            sb.append("}}");
+        }
+        for (Phase p : phases()) {
+            sb.append(",{\"name\":");
+            string(sb, p.name);
+            sb.append(",\"cat\":\"fase\",\"ph\":\"X\",\"pid\":0,\"tid\":0,\"ts\":").append(micros(p.startNanos))
+              .append(",\"dur\":").append((p.endNanos - p.startNanos) / 1000).append('}');
+        }
+        for (Block b : blocks()) {
+            sb.append(",{\"name\":");
+            string(sb, String.format("filas %d-%d", b.startRow + 1, b.endRow));
+            sb.append(",\"cat\":");
+            string(sb, b.outcome);
+            sb.append(",\"ph\":\"X\",\"pid\":").append(b.endpointIndex + 1)
+              .append(",\"tid\":").append(b.worker + 1)
+              .append(",\"ts\":").append(micros(b.startNanos))
+              .append(",\"dur\":").append(b.durationNanos() / 1000)
+              .append(",\"args\":{\"chunk\":").append(b.chunk)
+              .append(",\"copyAMicros\":").append(b.copyANanos / 1000)
+              .append(",\"transferMicros\":").append(b.transferNanos() / 1000)
+              .append(",\"serverMillis\":").append(b.serverMillis)
+              .append(",\"copyCMicros\":").append(b.copyCNanos / 1000)
+              .append("}}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void writeChromeTrace(Path file) throws IOException {
+        Files.write(file, toChromeTrace().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long micros(long nanos) {
+        return (nanos - originNanos) / 1000;
+    }
+
+    private static void string(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,89 @@
+package client;
+
+import shared.BlockedKernel;
+import shared.MatrixKernel;
+import shared.MatrixKernels;
+
+/**
+ * Compara el kernel ingenuo i-j-k con shared.BlockedKernel (i-k-j por bloques).
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.KernelBenchmark [n1 n2 ...]
+ * Por defecto mide n = 512, 1024 y 2048.
+ * Si el kernel SIMD está disponible (--add-modules jdk.incubator.vector) también se mide.
+ */
+public class KernelBenchmark {
+    public static void main(String[] args) {
+        int[] sizes = {512, 1024, 2048};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+        BlockedKernel kernel = BlockedKernel.defaults();
+        System.out.printf("Tiles: L1=%d, L2=%d%n", kernel.l1Tile(), kernel.l2Tile());
+        MatrixKernel vector = MatrixKernels.vectorAvailable() ? MatrixKernels.select(MatrixKernels.VECTOR) : null;
+
+        // Calentamiento para que el JIT compile ambos kernels antes de medir
+        int[][] wA = randomMatrix(256, 1), wB = randomMatrix(256, 2);
+        for (int r = 0; r < 3; r++) {
+            naive(wA, wB);
+            kernel.multiply(wA, wB);
+            if (vector != null) multiply(vector, wA, wB);
+        }
+
+        for (int n : sizes) {
+            int[][] A = randomMatrix(n, 42);
+            int[][] B = randomMatrix(n, 43);
+
+            long t0 = System.nanoTime();
+            int[][] Cnaive = naive(A, B);
+            long t1 = System.nanoTime();
+            int[][] Cblocked = kernel.multiply(A, B);
+            long t2 = System.nanoTime();
+
+            long naiveMs = (t1 - t0) / 1_000_000;
+            long blockedMs = (t2 - t1) / 1_000_000;
+            System.out.printf("n=%d  ingenuo i-j-k: %d ms  bloques i-k-j: %d ms  speedup: %.2fx  correcto: %b%n",
+                    n, naiveMs, blockedMs, (double) naiveMs / Math.max(1, blockedMs), equal(Cnaive, Cblocked));
+            if (vector != null) {
+                long t3 = System.nanoTime();
+                int[][] Cvector = multiply(vector, A, B);
+                long vectorMs = (System.nanoTime() - t3) / 1_000_000;
+                System.out.printf("n=%d  %s: %d ms  speedup vs ingenuo: %.2fx  correcto: %b%n",
+                        n, vector.name(), vectorMs, (double) naiveMs / Math.max(1, vectorMs), equal(Cnaive, Cvector));
+            }
+        }
+    }
+
+    // Kernel original (referencia)
+    private static int[][] naive(int[][] A, int[][] B) {
+        int n = A.length, p = B[0].length, m = B.length;
+        int[][] C = new int[n][p];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < p; j++) {
+                int s = 0;
+                for (int k = 0; k < m; k++) s += A[i][k] * B[k][j];
+                C[i][j] = s;
+            }
+        return C;
+    }
+
+    private static int[][] multiply(MatrixKernel k, int[][] A, int[][] B) {
+        int[][] C = new int[A.length][B[0].length];
+        k.multiply(A, B, C, 0, A.length, 0);
+        return C;
+    }
+
+    private static int[][] randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        int[][] M = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) M[i][j] = rnd.nextInt(10);
+        return M;
+    }
+
+    private static boolean equal(int[][] X, int[][] Y) {
+        for (int i = 0; i < X.length; i++) {
+            if (!java.util.Arrays.equals(X[i], Y[i])) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+package client;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import shared.Matrix;
+import shared.MatrixFile;
+import shared.MatrixKernel;
+import shared.MatrixKernels;
+import shared.RowLanes;
+
+/**
+ * Multiplicación fuera de memoria: A, B y C viven en ficheros shared.MatrixFile (mapeados) y en el heap
+ * solo hay en cada momento un panel de filas de A, un panel de columnas de B y el panel de C que producen.
+ *
+ * Orden: para cada panel de columnas de B (k x w, se lee una vez) se recorren los paneles de filas de A
+ * (h x k) y cada panel h x w de C se calcula en paralelo (pool compartido de ConcurrentMultiplier) y se
+ * escribe en su sitio del fichero de salida. h y w salen del presupuesto de heap: la mitad para el panel
+ * de B y la otra mitad para los de A y C.
+ *
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.OutOfCoreMultiplier A.mtx B.mtx C.mtx [presupuestoMB]
+ *      java -cp "client/bin;client/lib/shared.jar" client.OutOfCoreMultiplier --generar fichero filas cols [semilla]
+ */
+public class OutOfCoreMultiplier {
+    // Filas por franja dentro de un panel (lo que coge cada hilo de una vez)
+    private static final int ROW_GRAIN = 16;
+
+    private final long budgetBytes;
+    private final int threads;
+    private final MatrixKernel kernel;
+
+    public OutOfCoreMultiplier(long budgetBytes, int threads) {
+        this(budgetBytes, threads, false);
+    }
+
+    public OutOfCoreMultiplier(long budgetBytes, int threads, boolean useVector) {
+        this.budgetBytes = Math.max(1L << 20, budgetBytes);
+        this.threads = (threads <= 0) ? Runtime.getRuntime().availableProcessors() : threads;
+        this.kernel = MatrixKernels.select(useVector ? MatrixKernels.VECTOR : MatrixKernels.BLOCKED);
+    }
+
+    /** Calcula C = A x B entre ficheros; C se crea (o sobrescribe) con A.rows() x B.cols(). */
+    public void multiply(Path aPath, Path bPath, Path cPath) throws IOException {
+        try (MatrixFile a = MatrixFile.open(aPath, false);
+             MatrixFile b = MatrixFile.open(bPath, false)) {
+            if (a.cols() != b.rows()) {
+                throw new IllegalArgumentException("Dimensiones incompatibles: " + a.rows() + "x" + a.cols()
+                        + " por " + b.rows() + "x" + b.cols());
+            }
+            try (MatrixFile c = MatrixFile.create(cPath, a.rows(), b.cols())) {
+                multiply(a, b, c);
+            }
+        }
+    }
+
+    /** Como multiply(Path...) con ficheros ya abiertos; c debe estar abierto para escritura. */
+    public void multiply(MatrixFile a, MatrixFile b, MatrixFile c) {
+        int n = a.rows(), k = a.cols(), p = b.cols();
+        int w = panelCols(k, p);
+        int h = panelRows(n, k, w);
+        for (int j0 = 0; j0 < p; j0 += w) {
+            int pw = Math.min(w, p - j0);
+            Matrix Bpanel = b.readBlock(0, j0, k, pw);
+            for (int i0 = 0; i0 < n; i0 += h) {
+                int ph = Math.min(h, n - i0);
+                Matrix Apanel = a.readRows(i0, i0 + ph);
+                Matrix Cpanel = new Matrix(ph, pw);
+                RowLanes.invoke(ConcurrentMultiplier.sharedPool(), 0, ph, threads, ROW_GRAIN,
+                        (start, end) -> kernel.multiply(Apanel, Bpanel, Cpanel, start, end, 0));
+                c.writeBlock(i0, j0, Cpanel);
+            }
+        }
+    }
+
+    // Columnas del panel de B: la mitad del presupuesto para k x w ints
+    int panelCols(int k, int p) {
+        long w = budgetBytes / 2 / ((long) Math.max(1, k) * Integer.BYTES);
+        return (int) Math.max(1, Math.min(p, w));
+    }
+
+    // Filas de los paneles de A y C: la otra mitad para h x (k + w) ints
+    int panelRows(int n, int k, int w) {
+        long h = budgetBytes / 2 / ((long) (k + w) * Integer.BYTES);
+        return (int) Math.max(1, Math.min(n, h));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 4 && args[0].equals("--generar")) {
+            long seed = (args.length > 4) ? Long.parseLong(args[4]) : 42;
+            generate(Paths.get(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), seed);
+            return;
+        }
+        if (args.length < 3) {
+            System.out.println("Uso: OutOfCoreMultiplier A.mtx B.mtx C.mtx [presupuestoMB]");
+            System.out.println("     OutOfCoreMultiplier --generar fichero filas cols [semilla]");
+            return;
+        }
+        long budgetMB = (args.length > 3) ? Long.parseLong(args[3]) : Runtime.getRuntime().maxMemory() / 4 / (1 << 20);
+        OutOfCoreMultiplier ooc = new OutOfCoreMultiplier(budgetMB << 20, 0);
+        long t0 = System.nanoTime();
+        ooc.multiply(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]));
+        System.out.printf("Fuera de memoria (presupuesto %d MB): %d ms%n", budgetMB, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    // Fichero aleatorio (0..9) de filas x cols escrito por paneles, sin tenerlo entero en el heap
+    static void generate(Path path, int rows, int cols, long seed) throws IOException {
+        java.util.Random rnd = new java.util.Random(seed);
+        int panel = (int) Math.max(1, Math.min(rows, (16L << 20) / Math.max(1, (long) cols * Integer.BYTES)));
+        try (MatrixFile f = MatrixFile.create(path, rows, cols)) {
+            for (int r0 = 0; r0 < rows; r0 += panel) {
+                Matrix M = new Matrix(Math.min(panel, rows - r0), cols);
+                int[] data = M.data();
+                for (int i = 0; i < data.length; i++) data[i] = rnd.nextInt(10);
+                f.writeBlock(r0, 0, M);
+            }
+        }
+    }
+}
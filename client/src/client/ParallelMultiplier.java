@@ -1,27 +1,114 @@
 package client;
 
 import shared.MatrixMultiplier;
+import shared.BinaryProtocol;
+import shared.BlockChunk;
 import shared.BlockResult;
+import shared.BlockedKernel;
+import shared.Matrix;
+import shared.MatrixDigest;
+import shared.Calibration;
+import shared.ServerBusyException;
+import shared.ServerCapabilities;
+import shared.UnknownBHandleException;
 
 import java.rmi.Naming;
+import java.rmi.ServerException;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.ArrayList;
 import javax.swing.SwingUtilities;
 
 /**
  * ParallelMultiplier (distribuido + procesamiento concurrente local)
  *
- * - Reparte filas entre workers (workers = número total de hilos que el usuario introduzca)
- * - Cada worker está asignado a un endpoint: uno de los servidores remotos o el "local"
- * - Si el endpoint es remoto, llama a multiplyBlock(A_block,B,rowOffset, serverThreadCount)
- * - Si el endpoint es local, usa ConcurrentMultiplier.multiplyBlock para procesar su segmento localmente
+ * - Crea 'hilos por endpoint' workers para cada endpoint: uno de los servidores remotos o el "local"
+ * - Las filas se reparten dinámicamente (GuidedScheduler): cada worker pide el siguiente chunk al
+ *   terminar el anterior, con chunks grandes al principio y pequeños al final
+ * - Si el endpoint es remoto, envía las filas del chunk con submitBlockPrepared y va copiando en C los
+ *   trozos que el servidor termina (nextChunk); sin B preparada usa multiplyBlock
+ * - Si el endpoint es local, calcula las filas del chunk directamente sobre C
  *
- * - El callback ProgressCallback se llama por cada chunk completado para actualizar la UI.
+ * - El callback ProgressCallback se llama por cada chunk (onWorkerStarted), por cada trozo de filas
+ *   recibido (onChunkCompleted, con las filas completadas del chunk) y una vez por worker al terminar
+ *   (onWorkerFinished, con el tiempo de procesamiento acumulado).
+ *
+ * - Tolerancia a fallos: si una llamada remota falla o pasa callTimeoutMillis sin progreso, el chunk vuelve
+ *   a la cola y lo recoge otro endpoint; tras maxRetries fallos solo lo toma el endpoint local (o el hilo que
+ *   llamó, al final). Un endpoint con maxEndpointFailures fallos seguidos se descarta para el resto del trabajo.
+ * - Especulación (opcional): un worker sin trabajo duplica un chunk que lleva más del percentil configurado
+ *   de la latencia por fila; el primer resultado gana y el otro se descarta.
+ * - Traza (opcional): con un JobTrace se registran las fases del trabajo y cada intento de cada chunk
+ *   (copia de A, llamada, cálculo del servidor, copia en C) para ver a dónde se va el tiempo.
  */
-public class ParallelMultiplier {
+public class ParallelMultiplier implements AutoCloseable {
+    // Tamaño mínimo de chunk por defecto (filas)
+    private static final int MIN_CHUNK_ROWS = 16;
+    // Espera máxima de cada nextChunk (si vence sin trozos se vuelve a pedir)
+    private static final long STREAM_POLL_MILLIS = 1000;
+
     private final ClientLogger logger;
     private AppGUI gui;
+    // Tamaño mínimo de chunk en filas (0 => automático según n y número de workers)
+    private volatile int minChunkRows = 0;
+
+    // Peso de la última observación en la media móvil de rendimiento por endpoint
+    private static final double THROUGHPUT_EWMA_ALPHA = 0.3;
+    private static final String LOCAL_ENDPOINT_KEY = "local";
+    // Rendimiento observado por endpoint (GFLOP/s equivalentes), clave = lookupUrl o "local"
+    private final ConcurrentHashMap<String, Double> observedGflops = new ConcurrentHashMap<>();
+    // Calibración de esta máquina (se mide una vez, la primera vez que se usa el endpoint local)
+    private static volatile ServerCapabilities localCapabilities;
+
+    // Transporte hacia los servidores: RMI (serialización Java) o BINARY (shared.BinaryProtocol por TCP)
+    public enum Transport { RMI, BINARY }
+    private volatile Transport transport = Transport.valueOf(System.getProperty("client.transport", "rmi").toUpperCase());
+    private volatile int binaryPort = Integer.getInteger("client.binary.port", BinaryProtocol.DEFAULT_PORT);
+
+    // Reintentos por chunk antes de reservarlo al endpoint local, fallos seguidos para descartar un endpoint
+    // y tiempo máximo sin progreso de una llamada remota
+    private volatile int maxRetries = 3;
+    private volatile int maxEndpointFailures = 3;
+    private volatile long callTimeoutMillis = Long.getLong("client.callTimeoutMs", 60_000L);
+    // Duplicar chunks rezagados (más lentos que este percentil de ms/fila)
+    private volatile boolean speculation = Boolean.getBoolean("client.speculation");
+    private volatile double speculationPercentile = 0.95;
+    // Chunks terminados necesarios antes de especular
+    private static final int MIN_SPECULATION_SAMPLES = 5;
+    // Prioridad de los trabajos en la cola de los servidores (mayor = antes, 0 = normal)
+    private volatile int priority = Integer.getInteger("client.priority", 0);
+    // Crea el stub de cada servidor (null => RMI o binario según transport)
+    private volatile Function<ServerInfo, MatrixMultiplier> stubFactory;
+
+    // Motor de larga duración: los hilos y los stubs se reutilizan entre trabajos hasta close()
+    private final ExecutorService executor = newExecutor();
+    // Stubs por transporte + lookupUrl
+    private final ConcurrentHashMap<String, MatrixMultiplier> stubCache = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Hilos virtuales si la JVM los tiene (Java 21+, -Dclient.virtualThreads=false para desactivarlos):
+     * los workers pasan casi todo el tiempo bloqueados en llamadas RMI. Si no, hilos daemon cacheados.
+     */
+    private static ExecutorService newExecutor() {
+        if (Boolean.parseBoolean(System.getProperty("client.virtualThreads", "true"))) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                // Java 17: sin hilos virtuales
+            }
+        }
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "parallel-multiplier");
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
     public ParallelMultiplier(String clientId) {
         this.logger = new ClientLogger(clientId);
@@ -58,9 +145,43 @@ public class ParallelMultiplier {
         this.gui = AppGUI.getInstanceIfExists();
     }
 
+    public void setMinChunkRows(int minChunkRows) {
+        this.minChunkRows = minChunkRows;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    // Puerto del transporte binario en los servidores (el mismo para todos)
+    public void setBinaryPort(int binaryPort) {
+        this.binaryPort = binaryPort;
+    }
+
+    public void setFaultTolerance(int maxRetries, int maxEndpointFailures, long callTimeoutMillis) {
+        this.maxRetries = Math.max(1, maxRetries);
+        this.maxEndpointFailures = Math.max(1, maxEndpointFailures);
+        this.callTimeoutMillis = Math.max(1, callTimeoutMillis);
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public void setSpeculation(boolean enabled, double percentile) {
+        this.speculation = enabled;
+        this.speculationPercentile = Math.min(1.0, Math.max(0.0, percentile));
+    }
+
+    // Permite inyectar stubs propios (p. ej. servidores simulados en client.FaultInjectionHarness)
+    public void setStubFactory(Function<ServerInfo, MatrixMultiplier> stubFactory) {
+        this.stubFactory = stubFactory;
+    }
+
     /**
      * Multiplica A x B de forma distribuida entre servidores y posible procesamiento local.
-     * Ahora cada worker procesa su bloque completo de filas en una sola llamada.
+     * Cada worker procesa chunks de filas de la cola dinámica hasta que no quedan filas.
+     * Bloquea hasta el resultado; si se interrumpe el hilo que llama, se cancela el trabajo.
      */
     public int[][] multiplyDistributed(int[][] A, int[][] B,
                                        List<ServerInfo> servers,
@@ -68,28 +189,168 @@ public class ParallelMultiplier {
                                        ProgressCallback callback,
                                        boolean includeLocal,
                                        int serverThreadCount) throws Exception {
+        return multiplyDistributed(A, B, servers, totalWorkers, callback, includeLocal, serverThreadCount, null);
+    }
+
+    // Como multiplyDistributed, registrando las fases y los bloques del trabajo en trace (null = sin traza)
+    public int[][] multiplyDistributed(int[][] A, int[][] B,
+                                       List<ServerInfo> servers,
+                                       int totalWorkers,
+                                       ProgressCallback callback,
+                                       boolean includeLocal,
+                                       int serverThreadCount,
+                                       JobTrace trace) throws Exception {
+        CompletableFuture<int[][]> future = multiplyAsync(A, B, servers, totalWorkers, callback, includeLocal, serverThreadCount, trace);
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw ex;
+        }
+    }
+
+    /**
+     * Como multiplyDistributed pero sin bloquear: el trabajo corre en los hilos del motor y el resultado
+     * llega por el CompletableFuture. Varios trabajos pueden ir a la vez sobre los mismos stubs y hilos.
+     * cancel() deja de repartir chunks, abandona las llamadas remotas en curso y termina el future con
+     * CancellationException.
+     */
+    public CompletableFuture<int[][]> multiplyAsync(int[][] A, int[][] B,
+                                                   List<ServerInfo> servers,
+                                                   int totalWorkers,
+                                                   ProgressCallback callback,
+                                                   boolean includeLocal,
+                                                   int serverThreadCount) {
+        return multiplyAsync(A, B, servers, totalWorkers, callback, includeLocal, serverThreadCount, null);
+    }
+
+    public CompletableFuture<int[][]> multiplyAsync(int[][] A, int[][] B,
+                                                   List<ServerInfo> servers,
+                                                   int totalWorkers,
+                                                   ProgressCallback callback,
+                                                   boolean includeLocal,
+                                                   int serverThreadCount,
+                                                   JobTrace trace) {
         if ((servers == null || servers.isEmpty()) && !includeLocal) {
             throw new IllegalArgumentException("Se requiere al menos 1 servidor remoto o incluir procesamiento local.");
         }
+        if (closed) throw new IllegalStateException("ParallelMultiplier cerrado");
+        final Job job = new Job(trace);
+        final CompletableFuture<int[][]> result = new CompletableFuture<>();
+        // CompletableFuture.cancel no interrumpe a nadie: la cancelación se propaga a mano al trabajo
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) {
+                job.cancel();
+                cancelOnServers(job);
+            }
+        });
+        executor.execute(() -> {
+            try {
+                result.complete(runJob(job, A, B, servers, totalWorkers, callback, includeLocal, serverThreadCount));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    // Avisa a los servidores del trabajo para que dejen de calcular filas que ya nadie va a leer (en otro hilo)
+    private void cancelOnServers(Job job) {
+        List<MatrixMultiplier> remotes = job.remotes;
+        if (remotes == null || remotes.isEmpty()) return;
+        try {
+            executor.execute(() -> {
+                for (MatrixMultiplier s : remotes) {
+                    try {
+                        s.cancel(job.id);
+                    } catch (Exception ex) {
+                        // servidor caído o antiguo: su cálculo terminará solo
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // motor cerrado
+        }
+    }
+
+    /** Cierra los stubs reutilizados (conexiones binarias) y los hilos del motor. */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        for (MatrixMultiplier s : stubCache.values()) {
+            if (s instanceof BinaryTransportStub) ((BinaryTransportStub) s).close();
+        }
+        stubCache.clear();
+    }
+
+    private int[][] runJob(Job job, int[][] A, int[][] B,
+                           List<ServerInfo> servers,
+                           int totalWorkers,
+                           ProgressCallback callback,
+                           boolean includeLocal,
+                           int serverThreadCount) throws Exception {
+        try {
+            return distribute(job, A, B, servers, totalWorkers, callback, includeLocal, serverThreadCount);
+        } finally {
+            if (job.trace != null) job.trace.finish();
+        }
+    }
+
+    private int[][] distribute(Job job, int[][] A, int[][] B,
+                               List<ServerInfo> servers,
+                               int totalWorkers,
+                               ProgressCallback callback,
+                               boolean includeLocal,
+                               int serverThreadCount) throws Exception {
         // preparar la lista de endpoints: todos los servidores y, si includeLocal, reservamos el último endpoint para local
         final List<MatrixMultiplier> stubs = new ArrayList<>();
         final List<ServerInfo> endpointsInfo = new ArrayList<>();
+        final List<Boolean> lookupFailed = new ArrayList<>();
+        long phaseStart = System.nanoTime();
         if (servers != null) {
             for (ServerInfo si : servers) {
-                MatrixMultiplier stub = (MatrixMultiplier) Naming.lookup(si.lookupUrl());
+                MatrixMultiplier stub = null;
+                try {
+                    stub = cachedStub(si);
+                } catch (Exception ex) {
+                    // Servidor inaccesible: sus filas se reparten entre el resto de endpoints
+                    warn(String.format("No se pudo conectar con %s: %s", si.lookupUrl(), ex.getMessage()));
+                }
                 stubs.add(stub);
                 endpointsInfo.add(si);
+                lookupFailed.add(stub == null);
             }
         }
 
+        phase(job, JobTrace.PHASE_CONNECT, phaseStart);
+
         final boolean hasLocal = includeLocal;
         if (hasLocal) {
             stubs.add(null);
             endpointsInfo.add(null);
+            lookupFailed.add(false);
         }
 
         final int endpointCount = stubs.size();
         if (endpointCount == 0) throw new IllegalStateException("No hay endpoints disponibles.");
+        List<MatrixMultiplier> remotes = new ArrayList<>();
+        for (MatrixMultiplier s : stubs) if (s != null) remotes.add(s);
+        job.remotes = remotes;
+        final int jobPriority = priority;
+        if (jobPriority != 0) {
+            for (MatrixMultiplier s : remotes) {
+                try {
+                    s.setJobPriority(job.id, jobPriority);
+                } catch (Exception ex) {
+                    // servidor antiguo: prioridad por defecto
+                }
+            }
+        }
 
         int n = A.length;
         if (totalWorkers <= 0) totalWorkers = Math.min(n, endpointCount);
@@ -99,39 +360,61 @@ public class ParallelMultiplier {
         final int perEndpointWorkers = (totalWorkers <= 0) ? 1 : totalWorkers;
         int totalAssignedWorkers = Math.max(1, endpointCount * perEndpointWorkers);
 
-        int rowsPerWorker = (n + totalAssignedWorkers - 1) / totalAssignedWorkers; // ceil
-
-        final List<Semaphore> endpointSemaphores = new ArrayList<>(endpointCount);
+        // Endpoints dados por caídos (sin conexión o demasiados fallos seguidos) y fallos seguidos de cada uno
+        final boolean[] dead = new boolean[endpointCount];
+        final AtomicInteger[] consecutiveFailures = new AtomicInteger[endpointCount];
         for (int i = 0; i < endpointCount; i++) {
-            // permitir 'perEndpointWorkers' solicitudes simultáneas por endpoint
-            endpointSemaphores.add(new Semaphore(perEndpointWorkers));
+            dead[i] = lookupFailed.get(i);
+            consecutiveFailures[i] = new AtomicInteger();
         }
 
-        final ConcurrentMultiplier localConcurrent;
-        if (hasLocal) {
-            int availableCores = Runtime.getRuntime().availableProcessors();
-            int coresPerEndpoint = Math.max(1, availableCores / Math.max(1, endpointCount));
-            localConcurrent = new ConcurrentMultiplier(coresPerEndpoint);
-        } else {
-            localConcurrent = null;
+        // Capacidad de cada endpoint: rendimiento observado en trabajos anteriores si existe;
+        // si no, la calibración que reporta el servidor (getCapabilities) o la de esta máquina.
+        final String[] endpointKeys = new String[endpointCount];
+        final double[] endpointCapacity = new double[endpointCount];
+        double totalCapacity = 0;
+        for (int i = 0; i < endpointCount; i++) {
+            endpointKeys[i] = (endpointsInfo.get(i) == null) ? LOCAL_ENDPOINT_KEY : endpointsInfo.get(i).lookupUrl();
+            if (dead[i]) continue;
+            endpointCapacity[i] = estimateCapacity(endpointKeys[i], stubs.get(i), perEndpointWorkers);
+            totalCapacity += endpointCapacity[i];
         }
+        // Fracción de la capacidad total que corresponde a cada worker de cada endpoint
+        final double[] workerWeight = new double[endpointCount];
+        for (int i = 0; i < endpointCount; i++) {
+            workerWeight[i] = (totalCapacity > 0) ? endpointCapacity[i] / totalCapacity / perEndpointWorkers : 1.0 / totalAssignedWorkers;
+        }
+        // Operaciones y tiempo de procesamiento acumulados por endpoint (para la media móvil)
+        final AtomicLong[] endpointOps = new AtomicLong[endpointCount];
+        final AtomicLong[] endpointMillis = new AtomicLong[endpointCount];
+        for (int i = 0; i < endpointCount; i++) {
+            endpointOps[i] = new AtomicLong();
+            endpointMillis[i] = new AtomicLong();
+        }
+        final long opsPerRow = 2L * B.length * B[0].length;
+
+        // B en formato plano (un solo int[]) para las llamadas remotas
+        final Matrix Bflat = Matrix.of(B);
 
         // Try to prepare B once on each remote endpoint to avoid re-sending B for every block.
-        final boolean[] endpointPrepared = new boolean[endpointCount];
+        // Servers cache B by content: if an endpoint already has this digest (a previous job
+        // used the same B) the upload is skipped entirely. null => send B with each block.
+        phaseStart = System.nanoTime();
+        final String bDigest = MatrixDigest.of(Bflat);
+        final String[] endpointHandle = new String[endpointCount];
         for (int i = 0; i < endpointCount; i++) {
             MatrixMultiplier s = stubs.get(i);
-            if (s == null) { endpointPrepared[i] = false; continue; }
+            if (s == null || dead[i]) continue;
             try {
-                s.prepareB(B);
-                endpointPrepared[i] = true;
+                endpointHandle[i] = callWithTimeout(job, () -> s.hasB(bDigest) ? bDigest : s.prepareB(Bflat), new Attempt());
             } catch (Exception ex) {
                 // If prepare fails, we'll fall back to sending B with each block
-                endpointPrepared[i] = false;
+                endpointHandle[i] = null;
             }
         }
+        phase(job, JobTrace.PHASE_PREPARE_B, phaseStart);
+        if (job.trace != null) job.trace.endpoints(endpointKeys, perEndpointWorkers);
 
-    int execPoolSize = totalAssignedWorkers;
-        ExecutorService exec = Executors.newFixedThreadPool(execPoolSize);
         CountDownLatch finishLatch = new CountDownLatch(totalAssignedWorkers);
 
         final int[][] C = new int[n][B[0].length];
@@ -139,101 +422,124 @@ public class ParallelMultiplier {
         final Object globalLock = new Object();
         final int[] globalDone = {0};
 
-        // Asignar localId incremental solo para workers locales
-        int localWorkerId = 1;
+        // Cola dinámica de chunks: cada worker pide el siguiente al terminar el anterior
+        int minChunk = (minChunkRows > 0) ? minChunkRows
+                : Math.max(MIN_CHUNK_ROWS, (n + totalAssignedWorkers * 16 - 1) / (totalAssignedWorkers * 16));
+        final GuidedScheduler scheduler = new GuidedScheduler(n, totalAssignedWorkers, minChunk);
+        // Estado de cada chunk (por índice) y latencias por fila de los chunks terminados (para la especulación)
+        final ConcurrentHashMap<Integer, ChunkState> states = new ConcurrentHashMap<>();
+        final List<Double> millisPerRow = new ArrayList<>();
+        final int retryLimit = maxRetries, failureLimit = maxEndpointFailures;
+        final boolean speculate = speculation;
+
+        final long distributeStart = System.nanoTime();
         for (int e = 0; e < endpointCount; e++) {
             for (int w = 0; w < perEndpointWorkers; w++) {
                 final int workerIndex = e * perEndpointWorkers + w;
                 if (workerIndex >= totalAssignedWorkers) break;
-                final int startRow = workerIndex * rowsPerWorker;
-                final int endRow = Math.min(n, (workerIndex + 1) * rowsPerWorker);
-                final int totalForWorker = Math.max(0, endRow - startRow);
 
                 final int endpointIndex = e;
                 final MatrixMultiplier stub = stubs.get(endpointIndex); // null => local
+                final boolean local = endpointsInfo.get(endpointIndex) == null;
 
-                // Solo para workers locales, asignar un id local
-                final int localId = (stub == null) ? localWorkerId++ : -1;
-
-                exec.submit(() -> {
+                executor.execute(() -> {
+                long totalProcessingTime = 0;
                 try {
-                    if (totalForWorker <= 0) {
-                        if (callback != null) callback.onWorkerStarted(workerIndex, endpointIndex, startRow, endRow);
-                        if (callback != null) callback.onWorkerFinished(workerIndex, endpointIndex, 0);
-                        return;
-                    }
+                    while (!dead[endpointIndex] && !job.cancelled) {
+                        GuidedScheduler.Chunk chunk = scheduler.next(workerWeight[endpointIndex], local);
+                        final ChunkState st;
+                        if (chunk != null) {
+                            st = states.computeIfAbsent(chunk.index, k -> new ChunkState());
+                            st.begin(chunk, endpointIndex);
+                        } else {
+                            // Sin filas nuevas: duplicar un chunk rezagado de otro endpoint, o esperar a posibles reintentos
+                            st = speculate ? pickStraggler(states, millisPerRow, endpointIndex) : null;
+                            if (st == null) {
+                                if (!scheduler.awaitWork(local, 50)) break;
+                                continue;
+                            }
+                            chunk = st.current;
+                            job.abandonedWork = true;
+                        }
+                        final GuidedScheduler.Chunk current = chunk;
+                        final int startRow = current.startRow;
+                        final int endRow = current.endRow;
+                        final int totalForChunk = current.rows();
 
-                    int[][] A_block = new int[totalForWorker][A[0].length];
-                    for (int i = 0; i < totalForWorker; i++) {
-                        System.arraycopy(A[startRow + i], 0, A_block[i], 0, A[0].length);
-                    }
+                        // Llamar a onWorkerStarted justo antes de procesar/enviar RMI (una vez por chunk)
+                        if (callback != null) callback.onWorkerStarted(workerIndex, endpointIndex, startRow, endRow);
 
-                    // Llamar a onWorkerStarted justo antes de procesar/enviar RMI
-                    if (callback != null) callback.onWorkerStarted(workerIndex, endpointIndex, startRow, endRow);
-
-                    int[][] blockResult;
-                    long serverProcessingTime = 0;
-                    if (stub == null) {
-                        // Procesamiento local - calcular número de hilo local para logs consistentes
-                        int localThreadNum = (workerIndex % perEndpointWorkers) + 1;
-                        
-                        int localThreads = (effectiveServerThreadCount > 0) ? effectiveServerThreadCount : Runtime.getRuntime().availableProcessors();
-                        long hiloStart = System.currentTimeMillis();
-                        if (logger != null && gui != null) {
-                            SwingUtilities.invokeLater(() -> gui.appendProgress(String.format("[Paralelo](Hilo #%d) INICIA [Filas: %d-%d]\n", localThreadNum, startRow+1, endRow)));
-                        }
-                        blockResult = new int[totalForWorker][B[0].length];
-                        for (int i = 0; i < totalForWorker; i++) {
-                            if (logger != null && gui != null) {
-                                int filaActual = startRow + i + 1;
-                                int threadNum = localThreadNum; // Capturar para lambda
-                                SwingUtilities.invokeLater(() -> gui.appendProgress(String.format("[Paralelo](Hilo #%d) fila %d procesando...\n", threadNum, filaActual)));
-                            }
-                            for (int j = 0; j < B[0].length; j++) {
-                                int s = 0;
-                                for (int k = 0; k < B.length; k++) s += A_block[i][k] * B[k][j];
-                                blockResult[i][j] = s;
+                        // Se llama cada vez que llegan filas terminadas del chunk (varias veces en streaming).
+                        // Con reintentos o copias especulativas solo cuenta lo que supera lo ya reportado del chunk.
+                        final Attempt attempt = new Attempt(st);
+                        final int[] chunkDone = {0};
+                        IntConsumer onRows = rows -> {
+                            attempt.lastProgressNanos = System.nanoTime();
+                            if (attempt.firstRowsNanos < 0) attempt.firstRowsNanos = attempt.lastProgressNanos;
+                            chunkDone[0] += rows;
+                            int delta = st.report(chunkDone[0]);
+                            int globalNow;
+                            synchronized (globalLock) {
+                                globalDone[0] += delta;
+                                globalNow = globalDone[0];
                             }
-                        }
-                        serverProcessingTime = System.currentTimeMillis() - hiloStart;
-                        if (logger != null && gui != null) {
-                            long finalTime = serverProcessingTime;
-                            SwingUtilities.invokeLater(() -> gui.appendSuccess(String.format("[ÉXITO] [Paralelo](Hilo #%d) TERMINA [Filas: %d-%d] - Tiempo: %s\n", localThreadNum, startRow+1, endRow, gui.formatTime(finalTime))));
-                        }
-                    } else {
-                        Semaphore sem = endpointSemaphores.get(endpointIndex);
-                        sem.acquireUninterruptibly();
+                            if (callback != null) callback.onChunkCompleted(workerIndex, endpointIndex,
+                                    chunkDone[0], totalForChunk, globalNow, n);
+                        };
+
+                        long startNanos = System.nanoTime();
+                        final int laneWorker = workerIndex % perEndpointWorkers;
                         try {
-                            BlockResult result;
-                            if (endpointPrepared[endpointIndex]) {
-                                result = stub.multiplyBlockPrepared(A_block, workerIndex, startRow, effectiveServerThreadCount);
+                            long serverProcessingTime;
+                            if (local) {
+                                serverProcessingTime = computeLocal(job, A, B, C, startRow, endRow, laneWorker + 1, attempt, onRows);
                             } else {
-                                result = stub.multiplyBlock(A_block, B, workerIndex, startRow, effectiveServerThreadCount);
+                                serverProcessingTime = callWithTimeout(job, () -> computeRemote(stub, job.id, endpointHandle[endpointIndex],
+                                        A, Bflat, C, current.index, startRow, endRow, effectiveServerThreadCount, onRows, attempt), attempt);
+                            }
+                            consecutiveFailures[endpointIndex].set(0);
+                            boolean won = st.finish();
+                            trace(job, endpointKeys[endpointIndex], endpointIndex, laneWorker, current, startNanos, attempt,
+                                    serverProcessingTime, won ? JobTrace.OK : JobTrace.LOST);
+                            if (won) {
+                                // Primer resultado de este chunk: los demás intentos se descartan
+                                scheduler.complete(current);
+                                totalProcessingTime += serverProcessingTime;
+                                endpointOps[endpointIndex].addAndGet(opsPerRow * totalForChunk);
+                                endpointMillis[endpointIndex].addAndGet(serverProcessingTime);
+                                synchronized (millisPerRow) {
+                                    millisPerRow.add((System.nanoTime() - startNanos) / 1e6 / Math.max(1, totalForChunk));
+                                }
                             }
-                            blockResult = result.result;
-                            serverProcessingTime = result.processingTimeMillis;
-                        } finally {
-                            sem.release();
+                        } catch (InterruptedException ie) {
+                            throw ie;
+                        } catch (Exception ex) {
+                            attempt.abandon();
+                            ServerBusyException busy = busyCause(ex);
+                            trace(job, endpointKeys[endpointIndex], endpointIndex, laneWorker, current, startNanos, attempt, 0,
+                                    job.cancelled ? JobTrace.CANCELLED : (busy != null) ? JobTrace.BUSY : JobTrace.FAILED);
+                            if (job.cancelled) break;
+                            if (busy != null) {
+                                // Cola del servidor llena: no es un fallo; las filas vuelven a la cola sin gastar
+                                // reintentos y este worker espera lo que pide el servidor
+                                if (st.fail()) scheduler.putBack(current);
+                                Thread.sleep(busy.retryAfterMillis);
+                                continue;
+                            }
+                            job.abandonedWork = true;
+                            boolean endpointDown = consecutiveFailures[endpointIndex].incrementAndGet() >= failureLimit;
+                            if (endpointDown) dead[endpointIndex] = true;
+                            warn(String.format("%s falló en filas %d-%d (intento %d): %s%s",
+                                    endpointKeys[endpointIndex], startRow + 1, endRow, current.failures + 1, ex.getMessage(),
+                                    endpointDown ? " - endpoint descartado" : ""));
+                            // Si no queda otro intento en curso, las filas vuelven a la cola (a la local si ya agotaron los reintentos)
+                            if (st.fail()) scheduler.requeue(current, current.failures + 1 >= retryLimit);
                         }
                     }
-
-                    for (int i = 0; i < blockResult.length; i++) {
-                        int destRow = startRow + i;
-                        System.arraycopy(blockResult[i], 0, C[destRow], 0, blockResult[i].length);
-                    }
-
-                    int globalNow;
-                    synchronized (globalLock) {
-                        globalDone[0] += totalForWorker;
-                        globalNow = globalDone[0];
-                    }
-                    if (callback != null) callback.onChunkCompleted(workerIndex, endpointIndex,
-                            totalForWorker, totalForWorker, globalNow, n);
-
-                    if (callback != null) callback.onWorkerFinished(workerIndex, endpointIndex, serverProcessingTime);
+                    if (callback != null) callback.onWorkerFinished(workerIndex, endpointIndex, totalProcessingTime);
                 } catch (Exception ex) {
-                    ex.printStackTrace();
-                    if (callback != null) callback.onWorkerFinished(workerIndex, endpointIndex, 0);
+                    if (!job.cancelled) warn("Worker " + (workerIndex + 1) + " terminó con error: " + ex);
+                    if (callback != null) callback.onWorkerFinished(workerIndex, endpointIndex, totalProcessingTime);
                 } finally {
                     finishLatch.countDown();
                 }
@@ -241,9 +547,411 @@ public class ParallelMultiplier {
             }
         }
 
-    finishLatch.await(1, TimeUnit.HOURS);
-    exec.shutdown();
+        finishLatch.await();
+        phase(job, JobTrace.PHASE_DISTRIBUTE, distributeStart);
+        if (job.cancelled) throw new CancellationException("Trabajo cancelado");
+
+        // Filas que ningún endpoint pudo terminar (todos caídos o reintentos agotados sin endpoint local):
+        // se calculan aquí, en el hilo que llamó, para no devolver nunca un C incompleto
+        GuidedScheduler.Chunk rest;
+        phaseStart = System.nanoTime();
+        boolean localRest = false;
+        while ((rest = scheduler.next(1.0, true)) != null) {
+            localRest = true;
+            warn(String.format("Calculando en local las filas %d-%d tras los fallos remotos", rest.startRow + 1, rest.endRow));
+            ChunkState st = states.computeIfAbsent(rest.index, k -> new ChunkState());
+            computeLocal(job, A, B, C, rest.startRow, rest.endRow, 1, new Attempt(st), rows -> { });
+            int delta = st.report(rest.rows());
+            int globalNow;
+            synchronized (globalLock) {
+                globalDone[0] += delta;
+                globalNow = globalDone[0];
+            }
+            if (callback != null) callback.onChunkCompleted(totalAssignedWorkers, endpointCount, rest.rows(), rest.rows(), globalNow, n);
+            scheduler.complete(rest);
+        }
+        if (localRest) phase(job, JobTrace.PHASE_LOCAL_REST, phaseStart);
+        if (!scheduler.isDone()) throw new IllegalStateException("El trabajo terminó con filas sin calcular");
+
+        // Actualizar la media móvil de rendimiento de cada endpoint para repartir mejor el siguiente trabajo.
+        // Los workers de un endpoint se solapan, así que su tiempo efectivo es la suma / workers.
+        for (int i = 0; i < endpointCount; i++) {
+            long millis = endpointMillis[i].get();
+            if (millis <= 0) continue;
+            double gflops = endpointOps[i].get() / (millis / (double) perEndpointWorkers) / 1e6;
+            observedGflops.merge(endpointKeys[i], gflops,
+                    (old, now) -> THROUGHPUT_EWMA_ALPHA * now + (1 - THROUGHPUT_EWMA_ALPHA) * old);
+        }
+
+        // Copias especulativas perdedoras o llamadas abandonadas pueden seguir calculando en algún servidor
+        if (job.abandonedWork) cancelOnServers(job);
+
+        // B se queda en la caché de cada servidor para los siguientes trabajos (la expulsa el TTL/LRU).
+        // Los stubs siguen en stubCache para el siguiente trabajo; un endpoint descartado se vuelve a conectar.
+        for (int i = 0; i < endpointCount; i++) {
+            if (dead[i] && endpointsInfo.get(i) != null && stubs.get(i) != null) evictStub(endpointsInfo.get(i), stubs.get(i));
+        }
 
         return C;
     }
+
+    // Stub reutilizado entre trabajos para un servidor (misma conexión RMI o pool de conexiones binarias)
+    private MatrixMultiplier cachedStub(ServerInfo si) throws Exception {
+        String key = stubKey(si);
+        MatrixMultiplier stub = stubCache.get(key);
+        if (stub != null) return stub;
+        stub = createStub(si);
+        MatrixMultiplier previous = stubCache.putIfAbsent(key, stub);
+        if (previous != null) {
+            // otro trabajo lo creó a la vez: quedarse con el suyo
+            if (stub instanceof BinaryTransportStub) ((BinaryTransportStub) stub).close();
+            return previous;
+        }
+        return stub;
+    }
+
+    private void evictStub(ServerInfo si, MatrixMultiplier stub) {
+        if (stubCache.remove(stubKey(si), stub) && stub instanceof BinaryTransportStub) {
+            ((BinaryTransportStub) stub).close();
+        }
+    }
+
+    private String stubKey(ServerInfo si) {
+        return transport + "|" + si.lookupUrl();
+    }
+
+    // Stub para un servidor: la fábrica inyectada (pruebas, servidores simulados) o RMI/binario según transport
+    private MatrixMultiplier createStub(ServerInfo si) throws Exception {
+        Function<ServerInfo, MatrixMultiplier> factory = stubFactory;
+        if (factory != null) return factory.apply(si);
+        return (transport == Transport.BINARY)
+                ? new BinaryTransportStub(si.host, binaryPort)
+                : (MatrixMultiplier) Naming.lookup(si.lookupUrl());
+    }
+
+    // ServerBusyException directa (binario) o envuelta en ServerException (RMI)
+    private static ServerBusyException busyCause(Exception ex) {
+        if (ex instanceof ServerBusyException) return (ServerBusyException) ex;
+        if (ex instanceof ServerException && ((ServerException) ex).detail instanceof ServerBusyException) {
+            return (ServerBusyException) ((ServerException) ex).detail;
+        }
+        return null;
+    }
+
+    private void warn(String msg) {
+        System.err.println("[AVISO] " + msg);
+        if (gui != null) SwingUtilities.invokeLater(() -> gui.appendWarning(msg + "\n"));
+    }
+
+    // Un trabajo (una llamada a multiplyAsync): cancelarlo interrumpe las llamadas remotas en curso
+    // y se avisa a los servidores con cancel(id)
+    private static final class Job {
+        // Aleatorio de 64 bits: los servidores son compartidos por varios clientes
+        final long id = newJobId();
+        // null => sin traza
+        final JobTrace trace;
+        volatile boolean cancelled;
+        // Hubo intentos abandonados (timeout) o duplicados (especulación) que pueden seguir en un servidor
+        volatile boolean abandonedWork;
+        volatile List<MatrixMultiplier> remotes;
+        final Set<Future<?>> calls = ConcurrentHashMap.newKeySet();
+
+        Job(JobTrace trace) {
+            this.trace = trace;
+        }
+
+        private static long newJobId() {
+            long id;
+            do {
+                id = ThreadLocalRandom.current().nextLong();
+            } while (id == MatrixMultiplier.NO_JOB);
+            return id;
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (Future<?> f : calls) f.cancel(true);
+        }
+    }
+
+    // Un intento de calcular un chunk (en un endpoint remoto o en local)
+    private static final class Attempt {
+        // Chunk en el que escribe el intento (null en llamadas que no escriben en C, como prepareB)
+        private final ChunkState chunk;
+        private volatile boolean abandoned;
+        volatile long lastProgressNanos = System.nanoTime();
+        // Para la traza: copia de las filas de A, copias en C y llegada de las primeras filas (-1 = ninguna)
+        volatile long copyANanos, copyCNanos;
+        volatile long firstRowsNanos = -1;
+
+        Attempt() {
+            this(null);
+        }
+
+        Attempt(ChunkState chunk) {
+            this.chunk = chunk;
+        }
+
+        // Tras abandonar (timeout, cancelación o error) el intento ya no escribe en C; si hay una copia en
+        // curso se espera a que termine, así el intento siguiente nunca la pisa a medias
+        void abandon() {
+            if (chunk == null) {
+                abandoned = true;
+                return;
+            }
+            synchronized (chunk) {
+                abandoned = true;
+            }
+        }
+
+        // Copia filas en C solo si el intento sigue vivo y ningún otro ha terminado ya el chunk. La comprobación
+        // y la copia van bajo el lock del ChunkState: abandon() y finish() no pueden colarse entre las dos
+        boolean write(Runnable copy) {
+            if (chunk == null) {
+                if (abandoned) return false;
+                copy.run();
+                return true;
+            }
+            synchronized (chunk) {
+                if (abandoned || chunk.done) return false;
+                copy.run();
+                return true;
+            }
+        }
+    }
+
+    private static void phase(Job job, String name, long startNanos) {
+        if (job.trace != null) job.trace.phase(name, startNanos);
+    }
+
+    // Registra un intento de un chunk en la traza del trabajo (si la hay)
+    private static void trace(Job job, String endpoint, int endpointIndex, int worker, GuidedScheduler.Chunk chunk,
+                              long startNanos, Attempt attempt, long serverMillis, String outcome) {
+        if (job.trace == null) return;
+        long firstRows = attempt.firstRowsNanos;
+        job.trace.block(new JobTrace.Block(endpoint, endpointIndex, worker, chunk.index, chunk.startRow, chunk.endRow,
+                startNanos, System.nanoTime(), attempt.copyANanos, attempt.copyCNanos,
+                (firstRows < 0) ? -1 : firstRows - startNanos, serverMillis, outcome));
+    }
+
+    /**
+     * Estado de un chunk a lo largo de sus intentos (original, reintentos y copia especulativa).
+     * El primero que termina gana (finish); un fallo solo devuelve el chunk a la cola si no queda otro intento en curso.
+     */
+    private static final class ChunkState {
+        GuidedScheduler.Chunk current;
+        int running;
+        boolean done;
+        boolean speculated;
+        long startNanos;
+        int primaryEndpoint;
+        int reportedRows;
+
+        synchronized void begin(GuidedScheduler.Chunk chunk, int endpoint) {
+            current = chunk;
+            running++;
+            speculated = false;
+            startNanos = System.nanoTime();
+            primaryEndpoint = endpoint;
+        }
+
+        // Marca una copia especulativa si el chunk sigue con un único intento lento en otro endpoint
+        synchronized boolean trySpeculate(int endpoint, double thresholdMillis) {
+            if (done || speculated || running != 1 || primaryEndpoint == endpoint) return false;
+            if ((System.nanoTime() - startNanos) / 1e6 < thresholdMillis) return false;
+            speculated = true;
+            running++;
+            return true;
+        }
+
+        // true si este intento es el primero en terminar el chunk
+        synchronized boolean finish() {
+            running--;
+            if (done) return false;
+            done = true;
+            return true;
+        }
+
+        // true si el chunk debe volver a la cola (ningún intento lo terminó ni sigue en curso)
+        synchronized boolean fail() {
+            running--;
+            return !done && running == 0;
+        }
+
+        // Filas nuevas a sumar al progreso global cuando un intento lleva 'rowsDone' filas
+        synchronized int report(int rowsDone) {
+            int delta = Math.max(0, rowsDone - reportedRows);
+            reportedRows += delta;
+            return delta;
+        }
+    }
+
+    // Chunk rezagado para duplicar: lleva más que el percentil configurado de ms/fila de los chunks terminados
+    private ChunkState pickStraggler(ConcurrentHashMap<Integer, ChunkState> states, List<Double> millisPerRow, int endpoint) {
+        double[] samples;
+        synchronized (millisPerRow) {
+            if (millisPerRow.size() < MIN_SPECULATION_SAMPLES) return null;
+            samples = new double[millisPerRow.size()];
+            for (int i = 0; i < samples.length; i++) samples[i] = millisPerRow.get(i);
+        }
+        java.util.Arrays.sort(samples);
+        double perRow = samples[Math.min(samples.length - 1, (int) Math.floor(speculationPercentile * samples.length))];
+        for (ChunkState st : states.values()) {
+            GuidedScheduler.Chunk c;
+            synchronized (st) { c = st.current; }
+            if (c != null && st.trySpeculate(endpoint, perRow * c.rows())) return st;
+        }
+        return null;
+    }
+
+    // Ejecuta una llamada remota en otro hilo del motor; falla si pasan callTimeoutMillis sin progreso
+    // del intento o si se cancela el trabajo (la llamada se interrumpe)
+    private <T> T callWithTimeout(Job job, Callable<T> call, Attempt attempt) throws Exception {
+        Future<T> f = executor.submit(call);
+        job.calls.add(f);
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis);
+        try {
+            return awaitCall(job, f, timeoutNanos, attempt);
+        } finally {
+            job.calls.remove(f);
+        }
+    }
+
+    private <T> T awaitCall(Job job, Future<T> f, long timeoutNanos, Attempt attempt) throws Exception {
+        while (true) {
+            try {
+                return f.get(100, TimeUnit.MILLISECONDS);
+            } catch (CancellationException ce) {
+                attempt.abandon();
+                throw ce;
+            } catch (TimeoutException te) {
+                if (job.cancelled) {
+                    attempt.abandon();
+                    f.cancel(true);
+                    throw new CancellationException("Trabajo cancelado");
+                }
+                if (System.nanoTime() - attempt.lastProgressNanos > timeoutNanos) {
+                    attempt.abandon();
+                    f.cancel(true);
+                    throw new TimeoutException("sin respuesta en " + callTimeoutMillis + " ms");
+                }
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw ee;
+            }
+        }
+    }
+
+    // Capacidad estimada (GFLOP/s) de un endpoint; stub == null => local
+    private double estimateCapacity(String key, MatrixMultiplier stub, int perEndpointWorkers) {
+        Double observed = observedGflops.get(key);
+        if (observed != null && observed > 0) return observed;
+        if (stub == null) {
+            ServerCapabilities local = localCapabilities();
+            // el endpoint local solo usa 'perEndpointWorkers' hilos
+            return local.gflops * Math.min(perEndpointWorkers, local.cores) / local.cores;
+        }
+        try {
+            ServerCapabilities caps = stub.getCapabilities();
+            if (caps != null && caps.gflops > 0) return caps.gflops;
+        } catch (Exception ex) {
+            // servidor antiguo o error: usar la capacidad de esta máquina como referencia
+        }
+        return localCapabilities().gflops;
+    }
+
+    private static ServerCapabilities localCapabilities() {
+        ServerCapabilities caps = localCapabilities;
+        if (caps == null) {
+            synchronized (ParallelMultiplier.class) {
+                caps = localCapabilities;
+                if (caps == null) {
+                    caps = Calibration.measure(ConcurrentMultiplier.sharedPool(), BlockedKernel.defaults());
+                    localCapabilities = caps;
+                }
+            }
+        }
+        return caps;
+    }
+
+    // Procesa localmente las filas [startRow,endRow) de A x B y las copia en C; devuelve el tiempo en ms.
+    // onRows recibe las filas que se van copiando en C.
+    private long computeLocal(Job job, int[][] A, int[][] B, int[][] C, int startRow, int endRow, int localThreadNum,
+                              Attempt attempt, IntConsumer onRows) {
+        long hiloStart = System.currentTimeMillis();
+        if (logger != null && gui != null) {
+            SwingUtilities.invokeLater(() -> gui.appendProgress(String.format("[Paralelo](Hilo #%d) INICIA [Filas: %d-%d]\n", localThreadNum, startRow+1, endRow)));
+        }
+        // Una sola llamada al kernel para todo el chunk (cada panel de B sirve para todas sus filas); la
+        // cancelación se mira antes de cada panel. Se calcula en un bloque auxiliar a cero y después se copia
+        // en C: el kernel acumula, y C puede traer filas de un intento anterior del mismo chunk (un streaming
+        // que falló a medias).
+        int p = B[0].length, rows = endRow - startRow;
+        int[][] tile = new int[rows][p];
+        BlockedKernel.defaults().multiply(A, B, tile, startRow, endRow, startRow, () -> {
+            if (job.cancelled) throw new CancellationException("Trabajo cancelado");
+        });
+        if (logger != null && gui != null) {
+            for (int i = startRow; i < endRow; i++) {
+                int filaActual = i + 1;
+                SwingUtilities.invokeLater(() -> gui.appendProgress(String.format("[Paralelo](Hilo #%d) fila %d procesada\n", localThreadNum, filaActual)));
+            }
+        }
+        // Si otro intento ya terminó el chunk, sus filas se quedan como están
+        if (attempt.write(() -> {
+            for (int r = 0; r < rows; r++) System.arraycopy(tile[r], 0, C[startRow + r], 0, p);
+        })) onRows.accept(rows);
+        long elapsed = System.currentTimeMillis() - hiloStart;
+        if (logger != null && gui != null) {
+            SwingUtilities.invokeLater(() -> gui.appendSuccess(String.format("[ÉXITO] [Paralelo](Hilo #%d) TERMINA [Filas: %d-%d] - Tiempo: %s\n", localThreadNum, startRow+1, endRow, gui.formatTime(elapsed))));
+        }
+        return elapsed;
+    }
+
+    /**
+     * Envía las filas [startRow,endRow) de A a un servidor y copia el resultado en C; devuelve el tiempo del servidor en ms.
+     * onRows recibe el número de filas que se van copiando en C.
+     */
+    private long computeRemote(MatrixMultiplier stub, long jobId, String bHandle, int[][] A, Matrix Bflat, int[][] C,
+                               int blockIndex, int startRow, int endRow, int serverThreadCount,
+                               IntConsumer onRows, Attempt attempt) throws Exception {
+        // Las filas de A viajan como una Matrix plana (un solo arreglo)
+        long copyStart = System.nanoTime();
+        Matrix A_block = Matrix.ofRows(A, startRow, endRow);
+        attempt.copyANanos = System.nanoTime() - copyStart;
+        if (bHandle != null) {
+            try {
+                return streamRemote(stub, jobId, bHandle, A_block, C, blockIndex, startRow, serverThreadCount, onRows, attempt);
+            } catch (UnknownBHandleException ex) {
+                // El servidor ya no tiene B (caducó o se expulsó): enviarla con el bloque
+            } catch (ServerException ex) {
+                // Por RMI la excepción del servidor llega envuelta en ServerException
+                if (!(ex.detail instanceof UnknownBHandleException)) throw ex;
+            }
+        }
+        BlockResult result = stub.multiplyBlock(jobId, A_block, Bflat, blockIndex, startRow, serverThreadCount);
+        // Un intento abandonado (timeout) o que ya perdió la carrera no escribe en C
+        copyStart = System.nanoTime();
+        if (!attempt.write(() -> result.copyRowsTo(C, startRow))) return result.processingTimeMillis;
+        attempt.copyCNanos += System.nanoTime() - copyStart;
+        onRows.accept(result.rowCount());
+        return result.processingTimeMillis;
+    }
+
+    // Bloque en streaming: cada trozo se copia en C en cuanto llega, mientras el servidor calcula el resto
+    private long streamRemote(MatrixMultiplier stub, long jobId, String bHandle, Matrix A_block, int[][] C,
+                              int blockIndex, int startRow, int serverThreadCount, IntConsumer onRows,
+                              Attempt attempt) throws Exception {
+        long streamId = stub.submitBlockPrepared(jobId, bHandle, A_block, blockIndex, startRow, serverThreadCount);
+        while (true) {
+            BlockChunk chunk = stub.nextChunk(streamId, STREAM_POLL_MILLIS);
+            if (chunk == null) continue; // el servidor sigue calculando
+            long copyStart = System.nanoTime();
+            if (!attempt.write(() -> chunk.copyRowsTo(C, startRow))) return chunk.processingTimeMillis;
+            attempt.copyCNanos += System.nanoTime() - copyStart;
+            onRows.accept(chunk.rows.rows());
+            if (chunk.last) return chunk.processingTimeMillis;
+        }
+    }
 }
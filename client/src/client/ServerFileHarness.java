@@ -0,0 +1,79 @@
+package client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.rmi.Naming;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import shared.BinaryProtocol;
+import shared.BlockResult;
+import shared.Matrix;
+import shared.MatrixFile;
+import shared.MatrixMultiplier;
+
+/**
+ * Comprueba los operandos en fichero del servidor (prepareBFromFile, multiplyBlockFromFile y
+ * multiplyBlockFromFileToFile). El cliente escribe A y B en el directorio de datos del servidor
+ * (mismo equipo o disco compartido) y después solo envía rutas; se usan RMI y el transporte binario.
+ *
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.ServerFileHarness [dataDir del servidor] [ip] [n]
+ */
+public class ServerFileHarness {
+    public static void main(String[] args) throws Exception {
+        Path dataDir = Paths.get((args.length > 0) ? args[0] : "data");
+        String serverIp = (args.length > 1) ? args[1] : "127.0.0.1";
+        int n = (args.length > 2) ? Integer.parseInt(args[2]) : 500;
+
+        Files.createDirectories(dataDir.resolve("harness"));
+        Matrix A = randomMatrix(n, 42), B = randomMatrix(n, 43);
+        MatrixFile.write(dataDir.resolve("harness/A.mtx"), A);
+        MatrixFile.write(dataDir.resolve("harness/B.mtx"), B);
+        int[][] expected = new SequentialMultiplier().multiply(A.toArray(), B.toArray());
+
+        MatrixMultiplier rmi = (MatrixMultiplier) Naming.lookup(String.format("//%s:1099/MatrixService", serverIp));
+        boolean ok = run("RMI", rmi, dataDir, n, expected);
+        try (BinaryTransportStub binary = new BinaryTransportStub(serverIp, BinaryProtocol.DEFAULT_PORT)) {
+            ok &= run("Binario", binary, dataDir, n, expected);
+        }
+
+        // Rutas fuera del directorio de datos: deben rechazarse
+        boolean rejected;
+        try {
+            rmi.prepareBFromFile("../fuera.mtx");
+            rejected = false;
+        } catch (RemoteException ex) {
+            rejected = true;
+        }
+        System.out.println("Ruta fuera de server.dataDir rechazada: " + rejected);
+        System.out.println((ok && rejected) ? "Operandos en fichero correctos" : "HAY RESULTADOS INCORRECTOS");
+        if (!(ok && rejected)) System.exit(1);
+    }
+
+    private static boolean run(String name, MatrixMultiplier stub, Path dataDir, int n, int[][] expected) throws Exception {
+        long t0 = System.nanoTime();
+        String handle = stub.prepareBFromFile("harness/B.mtx");
+        // Mitad superior: el resultado vuelve al cliente
+        BlockResult top = stub.multiplyBlockFromFile(MatrixMultiplier.NO_JOB, "harness/A.mtx", 0, n / 2, handle, 0);
+        // Mitad inferior: el resultado se queda en el servidor (harness/C.mtx)
+        String cName = "harness/C-" + name + ".mtx";
+        Files.deleteIfExists(dataDir.resolve(cName));
+        String cId = stub.multiplyBlockFromFileToFile(MatrixMultiplier.NO_JOB, "harness/A.mtx", n / 2, n, handle, cName, 0);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        boolean topOk = Arrays.deepEquals(Arrays.copyOfRange(expected, 0, n / 2), top.matrix.toArray());
+        Matrix C = MatrixFile.read(dataDir.resolve(cId));
+        boolean bottomOk = Arrays.deepEquals(Arrays.copyOfRange(expected, n / 2, n), C.rowView(n / 2, n).toArray());
+        System.out.printf("%-8s %5d ms  filas al cliente correctas: %b, C en el servidor (%s) correcta: %b%n",
+                name, ms, topOk, cId, bottomOk);
+        stub.clearPreparedB(handle);
+        return topOk && bottomOk;
+    }
+
+    private static Matrix randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        Matrix M = new Matrix(n, n);
+        for (int i = 0; i < n * n; i++) M.data()[i] = rnd.nextInt(10);
+        return M;
+    }
+}
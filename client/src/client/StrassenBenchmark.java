@@ -0,0 +1,65 @@
+package client;
+
+import shared.StrassenWinograd;
+
+/**
+ * Busca el punto de cruce entre el kernel clásico concurrente y Strassen-Winograd.
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.StrassenBenchmark [hilos] [n1 n2 ...]
+ * Por defecto usa todos los cores y n = 512, 1024, 2048 y 4096, con cutoffs 128, 256 y 512.
+ */
+public class StrassenBenchmark {
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[] sizes = {512, 1024, 2048, 4096};
+        if (args.length > 0) threads = Integer.parseInt(args[0]);
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+        int[] cutoffs = {128, 256, 512};
+
+        ConcurrentMultiplier conc = new ConcurrentMultiplier(threads);
+        System.out.printf("Hilos: %d, cutoff por defecto: %d%n", threads, StrassenWinograd.DEFAULT_CUTOFF);
+
+        // Calentamiento
+        int[][] wA = randomMatrix(512, 1), wB = randomMatrix(512, 2);
+        for (int r = 0; r < 3; r++) {
+            conc.multiply(wA, wB, threads);
+            conc.multiplyStrassen(wA, wB, 128);
+        }
+
+        for (int n : sizes) {
+            int[][] A = randomMatrix(n, 42);
+            int[][] B = randomMatrix(n, 43);
+
+            long t0 = System.nanoTime();
+            int[][] Cclassic = conc.multiply(A, B, threads);
+            long classicMs = (System.nanoTime() - t0) / 1_000_000;
+            System.out.printf("n=%d  clásico: %d ms%n", n, classicMs);
+
+            for (int cutoff : cutoffs) {
+                if (cutoff >= n) continue;
+                t0 = System.nanoTime();
+                int[][] Cs = conc.multiplyStrassen(A, B, cutoff);
+                long strassenMs = (System.nanoTime() - t0) / 1_000_000;
+                System.out.printf("n=%d  Strassen-Winograd cutoff=%d: %d ms  (%.2fx vs clásico)  correcto: %b%n",
+                        n, cutoff, strassenMs, (double) classicMs / Math.max(1, strassenMs), equal(Cclassic, Cs));
+            }
+        }
+    }
+
+    private static int[][] randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        int[][] M = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) M[i][j] = rnd.nextInt(10);
+        return M;
+    }
+
+    private static boolean equal(int[][] X, int[][] Y) {
+        for (int i = 0; i < X.length; i++) {
+            if (!java.util.Arrays.equals(X[i], Y[i])) return false;
+        }
+        return true;
+    }
+}
@@ -34,6 +34,25 @@ public class TestHarness {
         t1 = System.nanoTime();
         System.out.printf("Concurrente: %d ms\n", (t1 - t0) / 1_000_000);
 
+        // Fuera de memoria: A y B en ficheros temporales, presupuesto de 2 MB para forzar varios paneles
+        java.nio.file.Path aFile = java.nio.file.Files.createTempFile("A", ".mtx");
+        java.nio.file.Path bFile = java.nio.file.Files.createTempFile("B", ".mtx");
+        java.nio.file.Path cFile = java.nio.file.Files.createTempFile("C", ".mtx");
+        try {
+            shared.MatrixFile.write(aFile, shared.Matrix.of(A));
+            shared.MatrixFile.write(bFile, shared.Matrix.of(B));
+            t0 = System.nanoTime();
+            new OutOfCoreMultiplier(2L << 20, threads).multiply(aFile, bFile, cFile);
+            t1 = System.nanoTime();
+            boolean oocOk = java.util.Arrays.deepEquals(Cseq, shared.MatrixFile.read(cFile).toArray());
+            System.out.printf("Fuera de memoria: %d ms, correcto: %b\n", (t1 - t0) / 1_000_000, oocOk);
+        } finally {
+            for (java.nio.file.Path f : new java.nio.file.Path[]{aFile, bFile, cFile}) {
+                // En Windows un fichero aún mapeado no se puede borrar hasta que el GC libera el mapeo
+                try { java.nio.file.Files.deleteIfExists(f); } catch (java.io.IOException ex) { f.toFile().deleteOnExit(); }
+            }
+        }
+
     // Distributed: try to contact local server (two variants)
     String serverIp = "127.0.0.1";
     if (args.length > 0 && args[0] != null && !args[0].isEmpty()) serverIp = args[0];
@@ -45,7 +64,7 @@ public class TestHarness {
     System.out.println("Waiting 1s for server (if starting now)...");
     Thread.sleep(1000);
 
-    // 1) with explicit serverThreads (may cause server to create per-call pools)
+    // 1) with explicit serverThreads (server limits the call to that many threads of its shared pool)
     t0 = System.nanoTime();
     int[][] Cpar = pm.multiplyDistributed(A, B, servers, threads, null, true, serverThreads);
     t1 = System.nanoTime();
@@ -57,6 +76,13 @@ public class TestHarness {
     t1 = System.nanoTime();
     System.out.printf("Paralelo distribuido (serverThreads=0): %d ms\n", (t1 - t0) / 1_000_000);
 
+    // 3) con traza: fases, ruta crítica y uso por endpoint; -Dclient.traceFile=traza.json la exporta (chrome://tracing)
+    JobTrace trace = new JobTrace();
+    pm.multiplyDistributed(A, B, servers, threads, null, true, 0, trace);
+    System.out.print(trace.summary());
+    String traceFile = System.getProperty("client.traceFile");
+    if (traceFile != null) trace.writeChromeTrace(java.nio.file.Paths.get(traceFile));
+
         // Basic correctness check
         boolean ok = true;
         outer: for (int i = 0; i < n; i++) {
@@ -65,5 +91,57 @@ public class TestHarness {
             }
         }
         System.out.println("Resultado correcto vs paralelo: " + ok);
+
+        // Lote asíncrono sobre el mismo motor (mismos stubs e hilos): varios trabajos a la vez y uno cancelado
+        final int jobs = 8;
+        List<java.util.concurrent.CompletableFuture<int[][]>> futures = new ArrayList<>();
+        t0 = System.nanoTime();
+        for (int k = 0; k < jobs; k++) futures.add(pm.multiplyAsync(A, B, servers, threads, null, true, 0));
+        java.util.concurrent.CompletableFuture<int[][]> cancelled = pm.multiplyAsync(A, B, servers, threads, null, true, 0);
+        cancelled.cancel(true);
+        boolean batchOk = true;
+        for (java.util.concurrent.CompletableFuture<int[][]> f : futures) batchOk &= java.util.Arrays.deepEquals(Cseq, f.join());
+        t1 = System.nanoTime();
+        System.out.printf("Lote asíncrono: %d trabajos en %d ms, correctos: %b, cancelado: %b\n",
+                jobs, (t1 - t0) / 1_000_000, batchOk, cancelled.isCancelled());
+        pm.close();
+
+        // Cancelación en el servidor: un multiplyConcurrent largo con jobId se aborta con cancel(jobId)
+        shared.MatrixMultiplier stub = (shared.MatrixMultiplier) java.rmi.Naming.lookup(servers.get(0).lookupUrl());
+        shared.Matrix Abig = shared.Matrix.of(randomMatrix(2 * n, 44)), Bbig = shared.Matrix.of(randomMatrix(2 * n, 45));
+        final long jobId = java.util.concurrent.ThreadLocalRandom.current().nextLong();
+        java.util.concurrent.CompletableFuture<Long> call = java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                stub.multiplyConcurrent(jobId, Abig, Bbig, 0);
+                System.out.println("Cancelación: la llamada terminó sin cancelarse");
+            } catch (java.rmi.RemoteException ex) {
+                // esperado: JobCancelledException (por RMI, envuelta en ServerException)
+                boolean wasCancelled = ex instanceof shared.JobCancelledException || ex.detail instanceof shared.JobCancelledException;
+                if (!wasCancelled) System.out.println("Cancelación: error inesperado " + ex);
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        });
+        Thread.sleep(300);
+        long c0 = System.nanoTime();
+        boolean running = stub.cancel(jobId);
+        long callMs = call.join();
+        System.out.printf("Cancelación en el servidor: en curso=%b, la llamada volvió %d ms después de cancel (total %d ms)\n",
+                running, (System.nanoTime() - c0) / 1_000_000, callMs);
+
+        // Segmento: la variante ligera envía solo las filas [n/4, n/2) de A y recibe solo esas filas de C
+        int segStart = n / 4, segEnd = n / 2;
+        int[][] segLegacy = stub.multiplyConcurrentSegment(A, B, segStart, segEnd, 0);
+        int[][] segLean = stub.multiplyConcurrentSegment(shared.Matrix.ofRows(A, segStart, segEnd), shared.Matrix.of(B), segStart, 0).toArray();
+        int[][] segExpected = java.util.Arrays.copyOfRange(Cseq, segStart, segEnd);
+        System.out.printf("Segmento [%d,%d): clásico correcto: %b, ligero correcto: %b\n", segStart, segEnd,
+                java.util.Arrays.deepEquals(segExpected, segLegacy), java.util.Arrays.deepEquals(segExpected, segLean));
+    }
+
+    private static int[][] randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        int[][] M = new int[n][n];
+        for (int i = 0; i < n; i++) for (int j = 0; j < n; j++) M[i][j] = rnd.nextInt(10);
+        return M;
     }
 }
@@ -0,0 +1,78 @@
+package client;
+
+import java.rmi.Naming;
+import shared.BinaryProtocol;
+import shared.BlockResult;
+import shared.Matrix;
+import shared.MatrixCodec;
+import shared.MatrixMultiplier;
+
+/**
+ * Mide cuánto del tiempo de pared de multiplyBlockPrepared es transporte (serialización + red)
+ * comparando RMI con el protocolo binario contra el mismo servidor.
+ * overhead = tiempo de pared - tiempo de proceso que reporta el servidor (BlockResult.processingTimeMillis).
+ *
+ * Con -Dmatrix.codec=none|pack|auto (en cliente y servidor) se compara además el coste de la codificación.
+ *
+ * Uso: java -cp "client/bin;client/lib/shared.jar" client.TransportBenchmark [ip] [n] [filasPorBloque]
+ * Por defecto 127.0.0.1, n = 1024 y bloques de 64 filas.
+ */
+public class TransportBenchmark {
+    public static void main(String[] args) throws Exception {
+        String serverIp = (args.length > 0) ? args[0] : "127.0.0.1";
+        int n = (args.length > 1) ? Integer.parseInt(args[1]) : 1024;
+        int blockRows = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+        int binaryPort = Integer.getInteger("client.binary.port", BinaryProtocol.DEFAULT_PORT);
+
+        System.out.println("Codificación de matrices (-Dmatrix.codec): " + MatrixCodec.DEFAULT_MODE);
+        Matrix A = randomMatrix(n, 42), B = randomMatrix(n, 43);
+        MatrixMultiplier rmi = (MatrixMultiplier) Naming.lookup(String.format("//%s:1099/MatrixService", serverIp));
+        BinaryTransportStub binary = new BinaryTransportStub(serverIp, binaryPort);
+        try {
+            Matrix Crmi = null, Cbin = null;
+            // Dos pasadas: la primera calienta el JIT en ambos extremos
+            for (int pass = 0; pass < 2; pass++) {
+                boolean report = pass == 1;
+                Crmi = run("RMI", rmi, A, B, blockRows, report);
+                Cbin = run("Binario", binary, A, B, blockRows, report);
+            }
+            System.out.println("Resultados iguales: " + java.util.Arrays.equals(Crmi.data(), Cbin.data()));
+        } finally {
+            binary.close();
+        }
+    }
+
+    private static Matrix run(String name, MatrixMultiplier stub, Matrix A, Matrix B, int blockRows, boolean report)
+            throws Exception {
+        int n = A.rows();
+        Matrix C = new Matrix(n, B.cols());
+        long t0 = System.nanoTime();
+        String handle = stub.prepareB(B);
+        long t1 = System.nanoTime();
+        long serverMillis = 0;
+        for (int start = 0, block = 0; start < n; start += blockRows, block++) {
+            int end = Math.min(n, start + blockRows);
+            BlockResult r = stub.multiplyBlockPrepared(handle, A.view(start, 0, end - start, A.cols()), block, start, 0);
+            serverMillis += r.processingTimeMillis;
+            for (int i = 0; i < r.matrix.rows(); i++) {
+                System.arraycopy(r.matrix.data(), r.matrix.index(i, 0), C.data(), C.index(start + i, 0), C.cols());
+            }
+        }
+        long t2 = System.nanoTime();
+        stub.clearPreparedB(handle);
+        if (report) {
+            long prepareMs = (t1 - t0) / 1_000_000, blocksMs = (t2 - t1) / 1_000_000;
+            long overhead = Math.max(0, blocksMs - serverMillis);
+            System.out.printf("%-8s n=%d  prepareB: %d ms  bloques: %d ms  servidor: %d ms  transporte: %d ms (%.1f%%)%n",
+                    name, n, prepareMs, blocksMs, serverMillis, overhead, 100.0 * overhead / Math.max(1, blocksMs));
+        }
+        return C;
+    }
+
+    private static Matrix randomMatrix(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        Matrix M = new Matrix(n, n);
+        for (int i = 0; i < n * n; i++) M.data()[i] = rnd.nextInt(10);
+        return M;
+    }
+}
@@ -0,0 +1,346 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import shared.BinaryProtocol;
+import shared.BlockChunk;
+import shared.BlockResult;
+import shared.ElementType;
+import shared.JobCancelledException;
+import shared.Matrix;
+import shared.MatrixMultiplier;
+import shared.ServerBusyException;
+import shared.TypedMatrix;
+import shared.UnknownBHandleException;
+
+/**
+ * Escucha el protocolo binario (shared.BinaryProtocol) y delega en la misma implementación que RMI.
+ * Un hilo por conexión: el cliente abre una conexión por worker, así que cada conexión lleva
+ * una sola petición en curso y no hace falta multiplexar.
+ * Cuenta tramas y bytes y mide el tiempo de decodificar y codificar las matrices (ServerMetrics).
+ */
+public class BinaryServer {
+    private final MatrixMultiplier impl;
+    private final ServerMetrics metrics;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "binary-conn");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BinaryServer(MatrixMultiplier impl, String host, int port) throws IOException {
+        // Con MatrixMultiplierImpl las métricas del transporte salen junto a las de los métodos en getMetrics
+        this(impl, host, port, (impl instanceof MatrixMultiplierImpl)
+                ? ((MatrixMultiplierImpl) impl).metrics() : new ServerMetrics());
+    }
+
+    BinaryServer(MatrixMultiplier impl, String host, int port, ServerMetrics metrics) throws IOException {
+        this.impl = impl;
+        this.metrics = metrics;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(host, port));
+    }
+
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    // Arranca el hilo que acepta conexiones
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "binary-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void close() throws IOException {
+        serverChannel.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel ch = serverChannel.accept();
+                connections.submit(() -> serve(ch));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("[BINARIO] Error aceptando conexión: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel ch) {
+        // Para el reparto por cliente de ComputeScheduler (con RMI lo da RemoteServer.getClientHost)
+        try {
+            ComputeScheduler.setCaller(((InetSocketAddress) ch.getRemoteAddress()).getAddress().getHostAddress());
+        } catch (IOException | RuntimeException e) {
+            ComputeScheduler.setCaller("binario");
+        }
+        try (BinaryProtocol.Connection conn = new BinaryProtocol.Connection(ch)) {
+            while (conn.receive()) {
+                metrics.binaryFramesIn.increment();
+                metrics.binaryBytesIn.add(conn.frameBytes());
+                byte op = conn.getByte();
+                try {
+                    dispatch(op, conn);
+                } catch (UnknownBHandleException ex) {
+                    conn.begin();
+                    conn.putByte(BinaryProtocol.STATUS_UNKNOWN_HANDLE);
+                    conn.putString(ex.handle);
+                } catch (JobCancelledException ex) {
+                    conn.begin();
+                    conn.putByte(BinaryProtocol.STATUS_CANCELLED);
+                    conn.putString(Long.toString(ex.jobId));
+                } catch (ServerBusyException ex) {
+                    conn.begin();
+                    conn.putByte(BinaryProtocol.STATUS_BUSY);
+                    conn.putString(ex.queued + ":" + ex.retryAfterMillis);
+                } catch (Exception ex) {
+                    conn.begin();
+                    conn.putByte(BinaryProtocol.STATUS_ERROR);
+                    conn.putString(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+                }
+                conn.send();
+                metrics.binaryFramesOut.increment();
+                metrics.binaryBytesOut.add(conn.frameBytes());
+            }
+        } catch (IOException e) {
+            // el cliente cerró o la conexión se rompió: nada que responder
+        }
+    }
+
+    // Lee los argumentos, ejecuta la operación y deja la respuesta escrita (sin enviar) en conn
+    private void dispatch(byte op, BinaryProtocol.Connection conn) throws Exception {
+        switch (op) {
+            case BinaryProtocol.OP_MULTIPLY: {
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                Matrix C = impl.multiply(A, B);
+                ok(conn);
+                putMatrix(conn, C);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_CONCURRENT: {
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                int threadCount = conn.getInt();
+                Matrix C = impl.multiplyConcurrent(A, B, threadCount);
+                ok(conn);
+                putMatrix(conn, C);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_BLOCK: {
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                int blockIndex = conn.getInt(), rowOffset = conn.getInt(), threadCount = conn.getInt();
+                BlockResult r = impl.multiplyBlock(A, B, blockIndex, rowOffset, threadCount);
+                ok(conn);
+                putBlockResult(conn, r);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_SEGMENT: {
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                int rowOffset = conn.getInt(), threadCount = conn.getInt();
+                Matrix C = impl.multiplyConcurrentSegment(A, B, rowOffset, threadCount);
+                ok(conn);
+                putMatrix(conn, C);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_BLOCK_PREPARED: {
+                String handle = conn.getString();
+                Matrix A = getMatrix(conn);
+                int blockIndex = conn.getInt(), rowOffset = conn.getInt(), threadCount = conn.getInt();
+                BlockResult r = impl.multiplyBlockPrepared(handle, A, blockIndex, rowOffset, threadCount);
+                ok(conn);
+                putBlockResult(conn, r);
+                break;
+            }
+            case BinaryProtocol.OP_PREPARE_B: {
+                String handle = impl.prepareB(getMatrix(conn));
+                ok(conn);
+                conn.putString(handle);
+                break;
+            }
+            case BinaryProtocol.OP_CLEAR_B: {
+                impl.clearPreparedB(conn.getString());
+                ok(conn);
+                break;
+            }
+            case BinaryProtocol.OP_HAS_B: {
+                boolean has = impl.hasB(conn.getString());
+                ok(conn);
+                conn.putBoolean(has);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_STRASSEN: {
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                int cutoff = conn.getInt();
+                Matrix C = impl.multiplyStrassen(A, B, cutoff);
+                ok(conn);
+                putMatrix(conn, C);
+                break;
+            }
+            case BinaryProtocol.OP_GET_CAPABILITIES: {
+                ok(conn);
+                conn.putCapabilities(impl.getCapabilities());
+                break;
+            }
+            case BinaryProtocol.OP_SUBMIT_BLOCK_PREPARED: {
+                String handle = conn.getString();
+                Matrix A = getMatrix(conn);
+                int blockIndex = conn.getInt(), rowOffset = conn.getInt(), threadCount = conn.getInt();
+                long streamId = impl.submitBlockPrepared(handle, A, blockIndex, rowOffset, threadCount);
+                ok(conn);
+                conn.putLong(streamId);
+                break;
+            }
+            case BinaryProtocol.OP_NEXT_CHUNK: {
+                long streamId = conn.getLong(), timeoutMillis = conn.getLong();
+                BlockChunk chunk = impl.nextChunk(streamId, timeoutMillis);
+                ok(conn);
+                putChunk(conn, chunk);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_TYPED: {
+                TypedMatrix A = getTypedMatrix(conn), B = getTypedMatrix(conn);
+                ElementType resultType = conn.getElementType();
+                TypedMatrix C = impl.multiplyTyped(A, B, resultType);
+                ok(conn);
+                putTypedMatrix(conn, C);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_CONCURRENT_JOB: {
+                long jobId = conn.getLong();
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                int threadCount = conn.getInt();
+                Matrix C = impl.multiplyConcurrent(jobId, A, B, threadCount);
+                ok(conn);
+                putMatrix(conn, C);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_BLOCK_JOB: {
+                long jobId = conn.getLong();
+                Matrix A = getMatrix(conn), B = getMatrix(conn);
+                int blockIndex = conn.getInt(), rowOffset = conn.getInt(), threadCount = conn.getInt();
+                BlockResult r = impl.multiplyBlock(jobId, A, B, blockIndex, rowOffset, threadCount);
+                ok(conn);
+                putBlockResult(conn, r);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_BLOCK_PREPARED_JOB: {
+                long jobId = conn.getLong();
+                String handle = conn.getString();
+                Matrix A = getMatrix(conn);
+                int blockIndex = conn.getInt(), rowOffset = conn.getInt(), threadCount = conn.getInt();
+                BlockResult r = impl.multiplyBlockPrepared(jobId, handle, A, blockIndex, rowOffset, threadCount);
+                ok(conn);
+                putBlockResult(conn, r);
+                break;
+            }
+            case BinaryProtocol.OP_SUBMIT_BLOCK_PREPARED_JOB: {
+                long jobId = conn.getLong();
+                String handle = conn.getString();
+                Matrix A = getMatrix(conn);
+                int blockIndex = conn.getInt(), rowOffset = conn.getInt(), threadCount = conn.getInt();
+                long streamId = impl.submitBlockPrepared(jobId, handle, A, blockIndex, rowOffset, threadCount);
+                ok(conn);
+                conn.putLong(streamId);
+                break;
+            }
+            case BinaryProtocol.OP_PREPARE_B_FROM_FILE: {
+                String handle = impl.prepareBFromFile(conn.getString());
+                ok(conn);
+                conn.putString(handle);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_BLOCK_FROM_FILE: {
+                long jobId = conn.getLong();
+                String aPath = conn.getString();
+                int rowStart = conn.getInt(), rowEnd = conn.getInt();
+                String handle = conn.getString();
+                BlockResult r = impl.multiplyBlockFromFile(jobId, aPath, rowStart, rowEnd, handle, conn.getInt());
+                ok(conn);
+                putBlockResult(conn, r);
+                break;
+            }
+            case BinaryProtocol.OP_MULTIPLY_BLOCK_FROM_FILE_TO_FILE: {
+                long jobId = conn.getLong();
+                String aPath = conn.getString();
+                int rowStart = conn.getInt(), rowEnd = conn.getInt();
+                String handle = conn.getString(), cPath = conn.getString();
+                String id = impl.multiplyBlockFromFileToFile(jobId, aPath, rowStart, rowEnd, handle, cPath, conn.getInt());
+                ok(conn);
+                conn.putString(id);
+                break;
+            }
+            case BinaryProtocol.OP_SET_JOB_PRIORITY: {
+                long jobId = conn.getLong();
+                impl.setJobPriority(jobId, conn.getInt());
+                ok(conn);
+                break;
+            }
+            case BinaryProtocol.OP_GET_METRICS: {
+                String text = impl.getMetrics();
+                ok(conn);
+                conn.putString(text);
+                break;
+            }
+            case BinaryProtocol.OP_CANCEL: {
+                boolean running = impl.cancel(conn.getLong());
+                ok(conn);
+                conn.putBoolean(running);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Operación desconocida: " + op);
+        }
+    }
+
+    private static void ok(BinaryProtocol.Connection conn) {
+        conn.begin();
+        conn.putByte(BinaryProtocol.STATUS_OK);
+    }
+
+    private void putBlockResult(BinaryProtocol.Connection conn, BlockResult r) {
+        conn.putLong(r.processingTimeMillis);
+        putMatrix(conn, r.matrix);
+    }
+
+    // Lectura y escritura de matrices con su tiempo de (de)codificación en las métricas
+
+    private Matrix getMatrix(BinaryProtocol.Connection conn) throws IOException {
+        long t0 = System.nanoTime();
+        Matrix m = conn.getMatrix();
+        metrics.binaryDecode.recordNanos(System.nanoTime() - t0);
+        return m;
+    }
+
+    private TypedMatrix getTypedMatrix(BinaryProtocol.Connection conn) throws IOException {
+        long t0 = System.nanoTime();
+        TypedMatrix m = conn.getTypedMatrix();
+        metrics.binaryDecode.recordNanos(System.nanoTime() - t0);
+        return m;
+    }
+
+    private void putMatrix(BinaryProtocol.Connection conn, Matrix m) {
+        long t0 = System.nanoTime();
+        conn.putMatrix(m);
+        metrics.binaryEncode.recordNanos(System.nanoTime() - t0);
+    }
+
+    private void putTypedMatrix(BinaryProtocol.Connection conn, TypedMatrix m) {
+        long t0 = System.nanoTime();
+        conn.putTypedMatrix(m);
+        metrics.binaryEncode.recordNanos(System.nanoTime() - t0);
+    }
+
+    private void putChunk(BinaryProtocol.Connection conn, BlockChunk c) {
+        long t0 = System.nanoTime();
+        conn.putChunk(c);
+        metrics.binaryEncode.recordNanos(System.nanoTime() - t0);
+    }
+}
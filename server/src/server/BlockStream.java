@@ -0,0 +1,60 @@
+package server;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import shared.BlockChunk;
+import shared.Matrix;
+
+/**
+ * Cola de trozos terminados de un bloque enviado con submitBlockPrepared.
+ * Los hilos de cálculo publican cada trozo al terminarlo; el cliente los recoge con nextChunk.
+ */
+class BlockStream {
+    final long id;
+    private final LinkedBlockingQueue<BlockChunk> ready = new LinkedBlockingQueue<>();
+    private final long startTime = System.currentTimeMillis();
+    private int remaining;
+    private volatile Throwable failure;
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    BlockStream(long id, int chunkCount) {
+        this.id = id;
+        this.remaining = chunkCount;
+    }
+
+    /**
+     * Publica un trozo terminado. El decremento y la inserción van juntos para que el trozo
+     * marcado como último sea también el último de la cola. Devuelve true si era el último.
+     */
+    synchronized boolean publish(int rowStart, Matrix rows) {
+        boolean last = --remaining == 0;
+        long elapsed = last ? System.currentTimeMillis() - startTime : 0;
+        ready.add(new BlockChunk(rowStart, rows, last, elapsed));
+        return last;
+    }
+
+    void fail(Throwable t) {
+        failure = t;
+    }
+
+    /**
+     * Siguiente trozo, o null si no hay ninguno en timeoutMillis.
+     * Si algún trozo falló lanza la causa (los trozos ya publicados se descartan).
+     */
+    BlockChunk next(long timeoutMillis) throws Throwable {
+        lastAccessNanos = System.nanoTime();
+        // Se espera en pasos cortos para notar un fallo sin esperar el timeout entero
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+        while (true) {
+            if (failure != null) throw failure;
+            long left = deadline - System.nanoTime();
+            BlockChunk c = ready.poll(Math.max(0, Math.min(left, TimeUnit.MILLISECONDS.toNanos(50))), TimeUnit.NANOSECONDS);
+            if (c != null || left <= 0) return c;
+        }
+    }
+
+    // true si nadie ha pedido trozos en más de ttlNanos (cliente caído)
+    boolean idleFor(long ttlNanos) {
+        return System.nanoTime() - lastAccessNanos > ttlNanos;
+    }
+}
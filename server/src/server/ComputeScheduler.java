@@ -0,0 +1,208 @@
+package server;
+
+import java.rmi.RemoteException;
+import java.rmi.server.RemoteServer;
+import java.rmi.server.ServerNotActiveException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import shared.JobCancelledException;
+import shared.ServerBusyException;
+
+/**
+ * Control de admisión de las llamadas de cálculo: todas comparten el pool de cálculo del servidor y cada
+ * una pide los hilos que va a usar en él (threadCount; <= 0 = el pool entero). Se admiten llamadas mientras
+ * la suma de hilos pedidos quepa en maxThreads (por defecto el paralelismo del pool); el resto espera en
+ * cola (back-pressure sobre el cliente). Así con threadCount pequeño caben varias llamadas a la vez y el
+ * pool no se queda medio vacío, y con threadCount <= 0 cada llamada tiene el pool para ella sola.
+ *
+ * - Orden de la cola: primero la prioridad del trabajo (setJobPriority, mayor antes); a igual prioridad,
+ *   el cliente (host) que menos trabajo lleva servido, para que un cliente con muchos workers no
+ *   acapare el servidor; a igualdad, por orden de llegada.
+ * - Con más de maxQueued llamadas esperando se rechaza con ServerBusyException (retryAfterMillis).
+ * - Una llamada en cola cuyo trabajo se cancela sale con JobCancelledException sin llegar a calcular.
+ *
+ * - Si la primera de la cola no cabe todavía, las de detrás esperan (no se la adelanta con llamadas
+ *   más pequeñas, así una llamada que pide el pool entero no espera para siempre).
+ *
+ * Configuración: -Dserver.scheduler.maxThreads (por defecto el paralelismo del pool),
+ * -Dserver.scheduler.maxQueued (64) y -Dserver.scheduler.retryAfterMs (200).
+ */
+class ComputeScheduler {
+    /** Permiso para calcular; se devuelve con release(). */
+    static final class Ticket {
+        final String client;
+        final int priority;
+        final long cost;
+        final int threads;
+        final long seq;
+        boolean granted;
+
+        Ticket(String client, int priority, long cost, int threads, long seq) {
+            this.client = client; this.priority = priority; this.cost = cost; this.threads = threads; this.seq = seq;
+        }
+    }
+
+    // Cliente de las llamadas que no llegan por RMI (lo fija BinaryServer en cada hilo de conexión)
+    private static final ThreadLocal<String> CALLER = new ThreadLocal<>();
+
+    private final int maxThreads;
+    private final int maxQueued;
+    private final long retryAfterMillis;
+
+    private int running;
+    private int threadsInUse;
+    private long nextSeq;
+    private final List<Ticket> waiting = new ArrayList<>();
+    // Trabajo servido (multiplicaciones-suma) por cliente con llamadas en cola o en curso
+    private final Map<String, Long> served = new HashMap<>();
+    private final Map<String, Integer> activeByClient = new HashMap<>();
+
+    ComputeScheduler(int maxThreads, int maxQueued, long retryAfterMillis) {
+        this.maxThreads = Math.max(1, maxThreads);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.retryAfterMillis = Math.max(1, retryAfterMillis);
+    }
+
+    // Scheduler configurado con las propiedades del sistema; parallelism es el del pool de cálculo
+    static ComputeScheduler fromSystemProperties(int parallelism) {
+        return new ComputeScheduler(
+                Integer.getInteger("server.scheduler.maxThreads", parallelism),
+                Integer.getInteger("server.scheduler.maxQueued", 64),
+                Long.getLong("server.scheduler.retryAfterMs", 200));
+    }
+
+    static void setCaller(String host) {
+        CALLER.set(host);
+    }
+
+    // Host del cliente que hace la llamada en curso
+    private static String caller() {
+        String host = CALLER.get();
+        if (host != null) return host;
+        try {
+            return RemoteServer.getClientHost();
+        } catch (ServerNotActiveException ex) {
+            return "local";
+        }
+    }
+
+    /**
+     * Espera turno para una llamada de coste 'cost' (filas x columnas x dimensión interna) del trabajo job que
+     * usará 'threads' hilos del pool (<= 0 o más que maxThreads = todos).
+     * Lanza ServerBusyException si la cola está llena y JobCancelledException si el trabajo se cancela mientras espera.
+     */
+    Ticket acquire(JobRegistry.Job job, long cost, int threads) throws RemoteException {
+        String client = caller();
+        int useThreads = (threads <= 0) ? maxThreads : Math.min(threads, maxThreads);
+        synchronized (this) {
+            Ticket t = new Ticket(client, job.priority, Math.max(1, cost), useThreads, nextSeq++);
+            if (fits(t) && waiting.isEmpty()) {
+                enter(t);
+                grant(t);
+                return t;
+            }
+            if (waiting.size() >= maxQueued) throw new ServerBusyException(waiting.size(), retryAfterMillis);
+            enter(t);
+            waiting.add(t);
+            try {
+                while (!t.granted) {
+                    if (job.cancelled) {
+                        waiting.remove(t);
+                        leave(t);
+                        throw new JobCancelledException(job.id);
+                    }
+                    wait(50);
+                }
+            } catch (InterruptedException ex) {
+                if (t.granted) {
+                    release(t);
+                } else {
+                    waiting.remove(t);
+                    leave(t);
+                }
+                Thread.currentThread().interrupt();
+                throw new RemoteException("Interrumpido esperando turno de cálculo");
+            }
+            return t;
+        }
+    }
+
+    synchronized void release(Ticket t) {
+        running--;
+        threadsInUse -= t.threads;
+        leave(t);
+        while (!waiting.isEmpty()) {
+            Ticket next = pick();
+            if (!fits(next)) break;
+            waiting.remove(next);
+            grant(next);
+        }
+        notifyAll();
+    }
+
+    synchronized int queued() {
+        return waiting.size();
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    synchronized int threadsInUse() {
+        return threadsInUse;
+    }
+
+    int maxThreads() {
+        return maxThreads;
+    }
+
+    private boolean fits(Ticket t) {
+        return threadsInUse + t.threads <= maxThreads;
+    }
+
+    private void enter(Ticket t) {
+        // Un cliente que llega (o vuelve) empieza con lo servido al cliente activo que menos lleva,
+        // así no adelanta a todos por haber estado parado
+        if (!served.containsKey(t.client)) {
+            long min = 0;
+            boolean first = true;
+            for (long v : served.values()) {
+                if (first || v < min) min = v;
+                first = false;
+            }
+            served.put(t.client, min);
+        }
+        activeByClient.merge(t.client, 1, Integer::sum);
+    }
+
+    private void leave(Ticket t) {
+        if (activeByClient.merge(t.client, -1, Integer::sum) <= 0) {
+            activeByClient.remove(t.client);
+            served.remove(t.client);
+        }
+    }
+
+    private void grant(Ticket t) {
+        t.granted = true;
+        running++;
+        threadsInUse += t.threads;
+        served.merge(t.client, t.cost, Long::sum);
+    }
+
+    private Ticket pick() {
+        Ticket best = null;
+        for (Ticket t : waiting) {
+            if (best == null || compare(t, best) < 0) best = t;
+        }
+        return best;
+    }
+
+    private int compare(Ticket a, Ticket b) {
+        if (a.priority != b.priority) return Integer.compare(b.priority, a.priority);
+        int byServed = Long.compare(served.getOrDefault(a.client, 0L), served.getOrDefault(b.client, 0L));
+        if (byServed != 0) return byServed;
+        return Long.compare(a.seq, b.seq);
+    }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.rmi.RemoteException;
+import shared.MatrixFile;
+
+/**
+ * Directorio de datos del servidor (-Dserver.dataDir, por defecto ./data) con las matrices en fichero
+ * (shared.MatrixFile) que los clientes pueden usar como operandos sin enviarlas.
+ *
+ * Los clientes dan rutas relativas a este directorio; cualquier ruta que salga de él (.., absoluta o por
+ * enlace simbólico) se rechaza con RemoteException. El id que se devuelve de un fichero es su ruta relativa.
+ */
+class DataDirectory {
+    private final Path root;
+    // Serializa la creación de ficheros de salida (varias llamadas pueden escribir bloques del mismo C)
+    private final Object createLock = new Object();
+
+    DataDirectory(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    static DataDirectory fromSystemProperties() {
+        return new DataDirectory(Paths.get(System.getProperty("server.dataDir", "data")));
+    }
+
+    Path root() {
+        return root;
+    }
+
+    // Abre un fichero existente para lectura
+    MatrixFile openInput(String name) throws RemoteException {
+        Path p = resolve(name);
+        try {
+            checkInside(p.toRealPath(), name);
+            return MatrixFile.open(p, false);
+        } catch (RemoteException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new RemoteException("No se pudo abrir " + name + " en server.dataDir: " + ex.getMessage());
+        }
+    }
+
+    // Abre (o crea con rows x cols) un fichero de salida; si ya existe debe tener esas dimensiones
+    MatrixFile openOutput(String name, int rows, int cols) throws RemoteException {
+        Path p = resolve(name);
+        try {
+            synchronized (createLock) {
+                // Antes de crear nada se comprueba el ancestro existente más profundo (resuelto, con enlaces):
+                // los directorios que faltan cuelgan de él, así que no pueden acabar fuera de server.dataDir
+                Files.createDirectories(root);
+                checkInside(deepestExisting(p.getParent()).toRealPath(), name);
+                Files.createDirectories(p.getParent());
+                checkInside(p.getParent().toRealPath(), name);
+                if (!Files.exists(p)) return MatrixFile.create(p, rows, cols);
+            }
+            checkInside(p.toRealPath(), name);
+            MatrixFile f = MatrixFile.open(p, true);
+            if (f.rows() != rows || f.cols() != cols) {
+                f.close();
+                throw new RemoteException(String.format("%s ya existe con %dx%d (se esperaba %dx%d)",
+                        name, f.rows(), f.cols(), rows, cols));
+            }
+            return f;
+        } catch (RemoteException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new RemoteException("No se pudo abrir " + name + " en server.dataDir: " + ex.getMessage());
+        }
+    }
+
+    // Id (ruta relativa con '/') de un fichero del directorio
+    String idOf(String name) throws RemoteException {
+        return root.relativize(resolve(name)).toString().replace('\\', '/');
+    }
+
+    private Path resolve(String name) throws RemoteException {
+        if (name == null || name.isEmpty()) throw new RemoteException("Ruta de fichero vacía");
+        Path p = root.resolve(name).normalize();
+        checkInside(p, name);
+        if (p.equals(root)) throw new RemoteException("La ruta no es un fichero: " + name);
+        return p;
+    }
+
+    // p o su ancestro más cercano que ya existe
+    private static Path deepestExisting(Path p) {
+        Path q = p;
+        while (q != null && !Files.exists(q)) q = q.getParent();
+        return (q != null) ? q : p.getRoot();
+    }
+
+    // p es una ruta normalizada o real (toRealPath); en el segundo caso se compara con la raíz real
+    private void checkInside(Path p, String name) throws RemoteException {
+        boolean inside = p.startsWith(root);
+        if (!inside && Files.exists(root)) {
+            try {
+                inside = p.startsWith(root.toRealPath());
+            } catch (IOException ignored) {
+            }
+        }
+        if (!inside) throw new RemoteException("Ruta fuera de server.dataDir: " + name);
+    }
+}
@@ -0,0 +1,96 @@
+package server;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import shared.JobCancelledException;
+import shared.MatrixMultiplier;
+
+/**
+ * Trabajos en curso por jobId (el que envía el cliente) y su marca de cancelación.
+ *
+ * Cada llamada con jobId hace begin()/end(); las tareas ForkJoin consultan Job.cancelled antes de cada panel de B del kernel.
+ * cancel() puede llegar antes que las llamadas del trabajo (carrera en el cliente), por eso la marca se
+ * guarda aunque no haya nada en curso y se olvida cuando el trabajo lleva -Dserver.job.ttlSeconds
+ * (por defecto 600) sin llamadas.
+ */
+class JobRegistry {
+    /** Estado de un trabajo; NONE es el de las llamadas sin jobId (nunca se cancela). */
+    static final class Job {
+        static final Job NONE = new Job(MatrixMultiplier.NO_JOB);
+
+        final long id;
+        volatile boolean cancelled;
+        // Mayor = antes en la cola de ComputeScheduler
+        volatile int priority;
+        private int active;
+        private long lastUsedNanos = System.nanoTime();
+
+        private Job(long id) {
+            this.id = id;
+        }
+
+        void checkCancelled() throws JobCancelledException {
+            if (cancelled) throw new JobCancelledException(id);
+        }
+
+        // Para las tareas ForkJoin (no pueden lanzar excepciones comprobadas): checkpoint del kernel, antes de cada panel de B
+        void checkpoint() {
+            if (cancelled) throw new CancellationException("Trabajo cancelado: " + id);
+        }
+    }
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("server.job.ttlSeconds", 600));
+
+    private final ConcurrentHashMap<Long, Job> jobs = new ConcurrentHashMap<>();
+
+    // Registra una llamada del trabajo; falla si ya estaba cancelado
+    Job begin(long jobId) throws JobCancelledException {
+        if (jobId == MatrixMultiplier.NO_JOB) return Job.NONE;
+        purgeIdle();
+        Job job = jobs.computeIfAbsent(jobId, Job::new);
+        synchronized (job) {
+            job.checkCancelled();
+            job.active++;
+            job.lastUsedNanos = System.nanoTime();
+        }
+        return job;
+    }
+
+    void end(Job job) {
+        if (job == Job.NONE) return;
+        synchronized (job) {
+            job.active--;
+            job.lastUsedNanos = System.nanoTime();
+        }
+    }
+
+    // Marca el trabajo como cancelado; true si tenía llamadas en curso
+    boolean cancel(long jobId) {
+        if (jobId == MatrixMultiplier.NO_JOB) return false;
+        Job job = jobs.computeIfAbsent(jobId, Job::new);
+        synchronized (job) {
+            job.cancelled = true;
+            job.lastUsedNanos = System.nanoTime();
+            return job.active > 0;
+        }
+    }
+
+    void setPriority(long jobId, int priority) {
+        if (jobId == MatrixMultiplier.NO_JOB) return;
+        Job job = jobs.computeIfAbsent(jobId, Job::new);
+        synchronized (job) {
+            job.priority = priority;
+            job.lastUsedNanos = System.nanoTime();
+        }
+    }
+
+    private void purgeIdle() {
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                return job.active == 0 && now - job.lastUsedNanos > TTL_NANOS;
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en microsegundos al estilo HdrHistogram, sin dependencias: cubetas
+ * lineales hasta LINEAR y después SUB_BUCKETS cubetas por cada potencia de 2. El error relativo
+ * de un percentil es de 1/SUB_BUCKETS (~6 %).
+ * record() no toma locks (un incremento atómico); los percentiles se calculan al leer.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    // Cubre cualquier long no negativo (exponente hasta 62)
+    private static final int BUCKETS = LINEAR + (63 - (SUB_BITS + 1)) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long micros) {
+        long v = Math.max(0, micros);
+        counts.incrementAndGet(bucket(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    void recordNanos(long nanos) {
+        record(nanos / 1_000);
+    }
+
+    long count() { return count.sum(); }
+    long sum() { return sum.sum(); }
+    long max() { return max.get(); }
+
+    // Valor (límite superior de su cubeta) por debajo del cual queda la fracción q de las muestras
+    long percentile(double q) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(q * total), seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank)) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    private static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exp - (SUB_BITS + 1)) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exp = (bucket - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exp - SUB_BITS)) - 1;
+    }
+}
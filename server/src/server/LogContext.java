@@ -0,0 +1,28 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contexto de log de una petición (o de un bloque): lo crea ServerLogger.newContext una vez por bloque
+ * y lo llevan las tareas ForkJoin que lo calculan, en lugar de buscarlo en mapas compartidos por hilo.
+ * Cada petición numera sus tramos por separado, así las peticiones simultáneas no se pisan.
+ */
+final class LogContext {
+    // Contexto de las llamadas sin logs (nivel OFF)
+    static final LogContext NONE = new LogContext(0, -1);
+
+    final long requestId;
+    // Bloque global (0..), o -1 si la llamada no es de un bloque
+    final int blockIndex;
+    private final AtomicInteger nextLocalId = new AtomicInteger(1);
+
+    LogContext(long requestId, int blockIndex) {
+        this.requestId = requestId;
+        this.blockIndex = blockIndex;
+    }
+
+    // Número del siguiente tramo de esta petición (1, 2, ...)
+    int nextLocalId() {
+        return nextLocalId.getAndIncrement();
+    }
+}
@@ -1,123 +1,408 @@
 package server;
 
 import java.rmi.server.UnicastRemoteObject;
+import java.io.IOException;
 import java.rmi.RemoteException;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import shared.MatrixMultiplier;
 import shared.BlockResult;
+import shared.BlockChunk;
+import shared.Calibration;
+import shared.ServerCapabilities;
+import shared.ElementType;
+import shared.JobCancelledException;
+import shared.Matrix;
+import shared.MatrixFile;
+import shared.MatrixKernel;
+import shared.MatrixKernels;
+import shared.RowLanes;
+import shared.StrassenWinograd;
+import shared.TypedKernels;
+import shared.TypedMatrix;
+import shared.UnknownBHandleException;
 
 /**
  * Implementación RMI que incluye:
  * - multiply (secuencial)
  * - multiplyConcurrent (con ForkJoin, para todo A x B)
  * - multiplySegment (devuelve subsegmento calculado secuencialmente)
- * - multiplyConcurrentSegment (el servidor calcula su segmento usando ForkJoinPool)
+ * - multiplyConcurrentSegment (el servidor calcula su segmento usando ForkJoinPool); la variante con
+ *   Matrix recibe solo las filas del segmento y la de int[][] se reduce a ella
  * - multiplyBlock (NUEVO): recibe A_block (solo las filas necesarias) y lo procesa en paralelo internamente
+ * - submitBlockPrepared / nextChunk: como multiplyBlockPrepared, pero las filas se devuelven por trozos
+ *   a medida que se terminan (-Dserver.stream.chunkRows, por defecto 32)
+ * - Variantes con jobId + cancel(jobId): el kernel mira la marca de cancelación antes de cada panel
+ *   de B y las tareas abandonan el cálculo (JobCancelledException)
+ * - Todas las llamadas de cálculo pasan por ComputeScheduler (turnos justos por cliente, prioridad
+ *   por trabajo con setJobPriority y rechazo con ServerBusyException si la cola está llena)
  */
 public class MatrixMultiplierImpl extends UnicastRemoteObject implements MatrixMultiplier {
     private static final String SERVER_ID = System.getProperty("server.id", "Server");
+    // Kernel de cálculo: -Dserver.kernel=blocked (por defecto) o vector (SIMD, requiere --add-modules jdk.incubator.vector)
+    private static final MatrixKernel KERNEL = MatrixKernels.select(System.getProperty("server.kernel", MatrixKernels.BLOCKED));
     private final ServerLogger logger;
-    private final AtomicInteger processedRows = new AtomicInteger(0);
-    private int totalRows;
+    // Llamadas, bytes y latencias por método (getMetrics y GET /metrics)
+    private final ServerMetrics metrics = new ServerMetrics();
     
-    protected MatrixMultiplierImpl() throws RemoteException { 
+    // Capacidad medida al arrancar (micro-benchmark corto en el pool compartido)
+    private final ServerCapabilities capabilities;
+
+    // Público para poder levantar servidores dentro de otro proceso (benchmarks del módulo bench)
+    public MatrixMultiplierImpl() throws RemoteException { 
     super(); 
     this.logger = new ServerLogger(SERVER_ID);
+    this.capabilities = Calibration.measure(sharedPool, KERNEL);
     }
-    
-    private void resetProgress(int totalRows) {
-        this.totalRows = totalRows;
-        this.processedRows.set(0);
+
+    @Override
+    public ServerCapabilities getCapabilities() throws RemoteException {
+        metrics.count("getCapabilities", 0, 0);
+        return capabilities;
     }
     
-    private void updateProgress(int rowsProcessed) {
-        int currentProgress = processedRows.addAndGet(rowsProcessed);
-        logProgress("Multiplicación de matriz", currentProgress, totalRows);
+    // Nombre del kernel en uso (para el mensaje de arranque)
+    String kernelName() {
+        return KERNEL.name();
     }
-    
-    private void logProgress(String operation, int current, int total) {
-    // Progreso global eliminado, solo logs de hilos
+
+    ServerMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public String getMetrics() throws RemoteException {
+        metrics.count("getMetrics", 0, 0);
+        StringBuilder sb = new StringBuilder();
+        metrics.render(sb);
+        // Valores instantáneos: pool ForkJoin compartido, cola del scheduler, caché de B, streams y logs
+        ServerMetrics.gauge(sb, "matrix_pool_parallelism", sharedPool.getParallelism());
+        ServerMetrics.gauge(sb, "matrix_pool_size", sharedPool.getPoolSize());
+        ServerMetrics.gauge(sb, "matrix_pool_active_threads", sharedPool.getActiveThreadCount());
+        ServerMetrics.gauge(sb, "matrix_pool_running_threads", sharedPool.getRunningThreadCount());
+        ServerMetrics.gauge(sb, "matrix_pool_queued_tasks", sharedPool.getQueuedTaskCount());
+        ServerMetrics.gauge(sb, "matrix_pool_queued_submissions", sharedPool.getQueuedSubmissionCount());
+        ServerMetrics.gauge(sb, "matrix_pool_steals_total", sharedPool.getStealCount());
+        ServerMetrics.gauge(sb, "matrix_scheduler_running", scheduler.running());
+        ServerMetrics.gauge(sb, "matrix_scheduler_threads_in_use", scheduler.threadsInUse());
+        ServerMetrics.gauge(sb, "matrix_scheduler_max_threads", scheduler.maxThreads());
+        ServerMetrics.gauge(sb, "matrix_scheduler_queued", scheduler.queued());
+        ServerMetrics.gauge(sb, "matrix_bcache_entries", preparedBs.size());
+        ServerMetrics.gauge(sb, "matrix_bcache_bytes", preparedBs.usedBytes());
+        ServerMetrics.gauge(sb, "matrix_bcache_max_bytes", preparedBs.maxBytes());
+        ServerMetrics.gauge(sb, "matrix_streams_open", streams.size());
+        ServerMetrics.gauge(sb, "matrix_log_dropped_events_total", logger.droppedEvents());
+        return sb.toString();
     }
 
     // NEW: pool compartido para evitar creación/destrucción por cada llamada multiplyBlock/multiplyConcurrent
     private final ForkJoinPool sharedPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
-    // Optional cached B uploaded by client to avoid re-sending large B each block
-    private volatile int[][] preparedB = null;
+    // Bs subidas por los clientes (prepareB), direccionadas por su huella, con TTL y límite de memoria
+    private final PreparedBRegistry preparedBs = PreparedBRegistry.fromSystemProperties();
+    // Matrices en fichero que los clientes pueden usar como operandos (-Dserver.dataDir)
+    private final DataDirectory dataDir = DataDirectory.fromSystemProperties();
+    // Trabajos en curso y cancelados (cancel(jobId))
+    private final JobRegistry jobs = new JobRegistry();
+    // Turnos de cálculo entre clientes
+    private final ComputeScheduler scheduler = ComputeScheduler.fromSystemProperties(sharedPool.getParallelism());
+
+    @Override
+    public boolean cancel(long jobId) throws RemoteException {
+        metrics.count("cancel", 0, 0);
+        return jobs.cancel(jobId);
+    }
+
+    @Override
+    public void setJobPriority(long jobId, int priority) throws RemoteException {
+        metrics.count("setJobPriority", 0, 0);
+        jobs.setPriority(jobId, priority);
+    }
+
+    private interface JobBody<T> {
+        T run(JobRegistry.Job job) throws RemoteException;
+    }
+
+    // Registra la llamada en su trabajo, espera turno en el scheduler (cost = multiplicaciones-suma; threads = hilos
+    // del pool que usará, <= 0 = todos) y ejecuta body. En las métricas de 'method' quedan la llamada, bytesIn, la espera, el tiempo de cálculo y los bytes del resultado.
+    private <T> T admitted(String method, long jobId, long cost, int threads, long bytesIn, JobBody<T> body) throws RemoteException {
+        ServerMetrics.MethodStats stats = metrics.method(method);
+        stats.calls.increment();
+        stats.bytesIn.add(bytesIn);
+        long queuedAt = System.nanoTime();
+        try {
+            JobRegistry.Job job = jobs.begin(jobId);
+            try {
+                ComputeScheduler.Ticket ticket = scheduler.acquire(job, cost, threads);
+                long startedAt = System.nanoTime();
+                stats.queueWait.recordNanos(startedAt - queuedAt);
+                try {
+                    T result = body.run(job);
+                    stats.compute.recordNanos(System.nanoTime() - startedAt);
+                    stats.bytesOut.add(bytesOf(result));
+                    return result;
+                } finally {
+                    scheduler.release(ticket);
+                }
+            } finally {
+                jobs.end(job);
+            }
+        } catch (RemoteException | RuntimeException ex) {
+            stats.errors.increment();
+            throw ex;
+        }
+    }
+
+    private static long cost(Matrix A, Matrix B) {
+        return (long) A.rows() * A.cols() * B.cols();
+    }
+
+    // Bytes de datos de las matrices (int32), para las métricas de bytes por método
+    private static long bytes(Matrix... ms) {
+        long total = 0;
+        for (Matrix m : ms) if (m != null) total += 4L * m.rows() * m.cols();
+        return total;
+    }
+
+    private static long bytesOf(Object result) {
+        if (result instanceof Matrix) return bytes((Matrix) result);
+        if (result instanceof BlockResult) return bytes(((BlockResult) result).matrix);
+        if (result instanceof TypedMatrix) {
+            TypedMatrix t = (TypedMatrix) result;
+            return (long) t.type().bytes * t.rows() * t.cols();
+        }
+        if (result instanceof int[][]) {
+            int[][] a = (int[][]) result;
+            return (a.length == 0) ? 0 : 4L * a.length * a[0].length;
+        }
+        return 0;
+    }
+
+    @Override
+    public String prepareB(int[][] B) throws RemoteException {
+        return prepareB(Matrix.of(B));
+    }
+
+    @Override
+    public String prepareB(Matrix B) throws RemoteException {
+        // store reference (RMI delivers a copy)
+        metrics.count("prepareB", bytes(B), 0);
+        try {
+            return preparedBs.put(B);
+        } catch (IllegalArgumentException ex) {
+            throw new RemoteException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public void clearPreparedB(String bHandle) throws RemoteException {
+        metrics.count("clearPreparedB", 0, 0);
+        preparedBs.release(bHandle);
+    }
+
+    @Override
+    public boolean hasB(String digest) throws RemoteException {
+        metrics.count("hasB", 0, 0);
+        return preparedBs.contains(digest);
+    }
 
     @Override
-    public synchronized void prepareB(int[][] B) throws RemoteException {
-        // store reference (RMI delivers a copy), replacement is atomic due to synchronized
-        this.preparedB = B;
+    public String prepareBFromFile(String bPath) throws RemoteException {
+        metrics.count("prepareBFromFile", 0, 0);
+        MatrixFile f = dataDir.openInput(bPath);
+        try {
+            if (!preparedBs.fits(f.rows(), f.cols())) {
+                throw new RemoteException(String.format("%s (%dx%d) excede el presupuesto de caché de B", bPath, f.rows(), f.cols()));
+            }
+            return prepareB(f.readRows(0, f.rows()));
+        } finally {
+            closeQuietly(f);
+        }
     }
 
     @Override
-    public synchronized void clearPreparedB() throws RemoteException {
-        this.preparedB = null;
+    public BlockResult multiplyBlockFromFile(long jobId, String aPath, int rowStart, int rowEnd, String bHandle, int threadCount)
+            throws RemoteException {
+        Matrix B = preparedBs.get(bHandle);
+        if (B == null) throw new UnknownBHandleException(bHandle);
+        MatrixFile a = dataDir.openInput(aPath);
+        Matrix A_block;
+        try {
+            A_block = fileRows(a, aPath, rowStart, rowEnd, B.rows());
+        } finally {
+            closeQuietly(a);
+        }
+        if (A_block.rows() == 0) return new BlockResult(new Matrix(0, B.cols()), 0);
+        // A sale del disco del servidor: no cuenta como bytes recibidos
+        return admitted("multiplyBlockFromFile", jobId, cost(A_block, B), threadCount, 0,
+                job -> computeBlock(A_block, B, threadCount, System.currentTimeMillis(), job, -1));
+    }
+
+    @Override
+    public String multiplyBlockFromFileToFile(long jobId, String aPath, int rowStart, int rowEnd, String bHandle,
+                                              String cPath, int threadCount) throws RemoteException {
+        Matrix B = preparedBs.get(bHandle);
+        if (B == null) throw new UnknownBHandleException(bHandle);
+        MatrixFile a = dataDir.openInput(aPath);
+        int aRows = a.rows();
+        Matrix A_block;
+        try {
+            A_block = fileRows(a, aPath, rowStart, rowEnd, B.rows());
+        } finally {
+            closeQuietly(a);
+        }
+        // C se crea (o se comprueba) aunque el bloque esté vacío, así el id devuelto siempre existe
+        MatrixFile c = dataDir.openOutput(cPath, aRows, B.cols());
+        try {
+            if (A_block.rows() > 0) {
+                // El bloque de C se escribe dentro del turno y no viaja: la llamada no devuelve bytes de matriz
+                admitted("multiplyBlockFromFileToFile", jobId, cost(A_block, B), threadCount, 0, job -> {
+                    c.writeBlock(rowStart, 0, computeBlock(A_block, B, threadCount, System.currentTimeMillis(), job, -1).matrix);
+                    return null;
+                });
+            }
+            c.flush();
+        } catch (RemoteException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new RemoteException("No se pudo escribir " + cPath + ": " + ex.getMessage());
+        } finally {
+            closeQuietly(c);
+        }
+        return dataDir.idOf(cPath);
+    }
+
+    // Filas [rowStart,rowEnd) del fichero f copiadas al heap; comprueba límites y que tenga 'cols' columnas
+    private static Matrix fileRows(MatrixFile f, String name, int rowStart, int rowEnd, int cols) throws RemoteException {
+        if (f.cols() != cols) {
+            throw new RemoteException(String.format("%s tiene %d columnas y B %d filas", name, f.cols(), cols));
+        }
+        if (rowStart < 0 || rowEnd > f.rows() || rowStart > rowEnd) {
+            throw new RemoteException(String.format("Filas [%d,%d) fuera de %s (%d filas)", rowStart, rowEnd, name, f.rows()));
+        }
+        return f.readRows(rowStart, rowEnd);
+    }
+
+    private static void closeQuietly(MatrixFile f) {
+        try {
+            f.close();
+        } catch (IOException ignored) {
+        }
     }
 
     @Override
     public int[][] multiply(int[][] A, int[][] B)
             throws RemoteException {
-        logger.resetLocalIds();
-        int n = A.length, p = B[0].length, m = B.length;
-        int[][] C = new int[n][p];
-        for (int i = 0; i < n; i++)
-            for (int j = 0; j < p; j++)
-                for (int k = 0; k < m; k++)
-                    C[i][j] += A[i][k] * B[k][j];
-        return C;
+        return multiply(Matrix.of(A), Matrix.of(B)).toArray();
+    }
+
+    @Override
+    public Matrix multiply(Matrix A, Matrix B)
+            throws RemoteException {
+        return admitted("multiply", NO_JOB, cost(A, B), 1, bytes(A, B), job -> {
+            Matrix C = new Matrix(A.rows(), B.cols());
+            KERNEL.multiply(A, B, C, 0, A.rows(), 0);
+            return C;
+        });
     }
 
     @Override
     public int[][] multiplyConcurrent(int[][] A, int[][] B, int threadCount)
             throws RemoteException {
-        logger.resetLocalIds();
-        int n = A.length, p = B[0].length, m = B.length;
-        int[][] C = new int[n][p];
-        int useThreads = (threadCount <= 0) ? Runtime.getRuntime().availableProcessors() : threadCount;
+        return multiplyConcurrent(Matrix.of(A), Matrix.of(B), threadCount).toArray();
+    }
 
-    // Info eliminada, solo logs de hilos
+    @Override
+    public Matrix multiplyConcurrent(Matrix A, Matrix B, int threadCount)
+            throws RemoteException {
+        return multiplyConcurrent(NO_JOB, A, B, threadCount);
+    }
+
+    @Override
+    public Matrix multiplyConcurrent(long jobId, Matrix A, Matrix B, int threadCount)
+            throws RemoteException {
+        return admitted("multiplyConcurrent", jobId, cost(A, B), threadCount, bytes(A, B), job -> {
+            int n = A.rows(), p = B.cols();
+            Matrix C = new Matrix(n, p);
+            int useThreads = (threadCount <= 0) ? Runtime.getRuntime().availableProcessors() : threadCount;
+
+        // Info eliminada, solo logs de hilos
 
-        if (threadCount <= 0) {
-            int threshold = Math.max(1, n / (useThreads * 2));
-            sharedPool.invoke(new MatrixMultiplyTask(A, B, C, 0, n, threshold));
-        } else {
-            ForkJoinPool pool = new ForkJoinPool(useThreads);
             int threshold = Math.max(1, n / (useThreads * 2));
-            pool.invoke(new MatrixMultiplyTask(A, B, C, 0, n, threshold));
-            pool.shutdown();
+            invoke((s0, s1) -> new MatrixMultiplyTask(A, B, C, s0, s1, threshold, job), 0, n, threshold, threadCount, job);
+        // Success eliminado, solo logs de hilos
+            return C;
+        });
+    }
+
+    // Crea la tarea ForkJoin que calcula las filas [start, end)
+    private interface RowTasks {
+        ForkJoinTask<?> create(int start, int end);
+    }
+
+    // Calcula las filas [rowStart, rowEnd) en el pool compartido; la cancelación sale como JobCancelledException.
+    // Con 0 < threadCount < paralelismo del pool no se crea un pool propio: threadCount carriles (RowLanes)
+    // van cogiendo franjas de 'threshold' filas y el resto del pool sigue libre para otras llamadas.
+    private void invoke(RowTasks tasks, int rowStart, int rowEnd, int threshold, int threadCount, JobRegistry.Job job)
+            throws JobCancelledException {
+        try {
+            if (threadCount <= 0 || threadCount >= sharedPool.getParallelism()) {
+                sharedPool.invoke(tasks.create(rowStart, rowEnd));
+            } else {
+                RowLanes.invoke(sharedPool, rowStart, rowEnd, threadCount, threshold,
+                        (start, end) -> tasks.create(start, end).invoke());
+            }
+        } catch (CancellationException ex) {
+            throw new JobCancelledException(job.id);
         }
-    // Success eliminado, solo logs de hilos
-        return C;
+    }
+
+    @Override
+    public int[][] multiplyStrassen(int[][] A, int[][] B, int cutoff)
+            throws RemoteException {
+        return multiplyStrassen(Matrix.of(A), Matrix.of(B), cutoff).toArray();
+    }
+
+    @Override
+    public Matrix multiplyStrassen(Matrix A, Matrix B, int cutoff)
+            throws RemoteException {
+        return admitted("multiplyStrassen", NO_JOB, cost(A, B), 0, bytes(A, B), job -> StrassenWinograd.multiply(sharedPool, KERNEL, A, B, cutoff));
+    }
+
+    @Override
+    public TypedMatrix multiplyTyped(TypedMatrix A, TypedMatrix B, ElementType resultType)
+            throws RemoteException {
+        long cost = (long) A.rows() * A.cols() * B.cols();
+        return admitted("multiplyTyped", NO_JOB, cost, 0, bytesOf(A) + bytesOf(B), job -> {
+            try {
+                return TypedKernels.multiply(sharedPool, A, B, resultType);
+            } catch (IllegalArgumentException ex) {
+                throw new RemoteException(ex.getMessage());
+            }
+        });
     }
 
     // Clase interna para Fork/Join sobre matrices completas
     private static class MatrixMultiplyTask extends RecursiveAction {
-        private final int[][] A, B, C;
+        private final Matrix A, B, C;
         private final int rowStart, rowEnd, threshold;
-        MatrixMultiplyTask(int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int threshold) {
+        private final JobRegistry.Job job;
+        MatrixMultiplyTask(Matrix A, Matrix B, Matrix C, int rowStart, int rowEnd, int threshold, JobRegistry.Job job) {
             this.A = A; this.B = B; this.C = C;
             this.rowStart = rowStart; this.rowEnd = rowEnd; this.threshold = threshold;
+            this.job = job;
         }
         @Override
         protected void compute() {
             if (rowEnd - rowStart <= threshold) {
-                int p = B[0].length, m = B.length;
-                for (int i = rowStart; i < rowEnd; i++) {
-                    for (int j = 0; j < p; j++) {
-                        int s = 0;
-                        for (int k = 0; k < m; k++) {
-                            s += A[i][k] * B[k][j];
-                        }
-                        C[i][j] += s;
-                    }
-                }
+                // Una sola llamada por hoja: cada panel de B se reutiliza en todas sus filas
+                KERNEL.multiply(A, B, C, rowStart, rowEnd, 0, job::checkpoint);
             } else {
                 int mid = (rowStart + rowEnd) / 2;
                 invokeAll(
-                    new MatrixMultiplyTask(A, B, C, rowStart, mid, threshold),
-                    new MatrixMultiplyTask(A, B, C, mid, rowEnd, threshold)
+                    new MatrixMultiplyTask(A, B, C, rowStart, mid, threshold, job),
+                    new MatrixMultiplyTask(A, B, C, mid, rowEnd, threshold, job)
                 );
             }
         }
@@ -127,157 +412,259 @@ public class MatrixMultiplierImpl extends UnicastRemoteObject implements MatrixM
     public int[][] multiplySegment(int[][] A, int[][] B,
                                    int rowStart, int rowEnd)
             throws RemoteException {
-        int p = B[0].length, m = B.length;
-        int[][] Cseg = new int[rowEnd - rowStart][p];
-        for (int i = rowStart; i < rowEnd; i++) {
-            for (int j = 0; j < p; j++) {
-                for (int k = 0; k < m; k++) {
-                    Cseg[i - rowStart][j] += A[i][k] * B[k][j];
-                }
-            }
-        }
-        return Cseg;
+        // Solo se copian las filas del segmento
+        Matrix Am = Matrix.ofRows(A, rowStart, rowEnd), Bm = Matrix.of(B);
+        return admitted("multiplySegment", NO_JOB, cost(Am, Bm), 1, bytes(Am, Bm), job -> {
+            Matrix Cseg = new Matrix(Am.rows(), Bm.cols());
+            KERNEL.multiply(Am, Bm, Cseg, 0, Am.rows(), 0);
+            return Cseg.toArray();
+        });
     }
 
     @Override
     public int[][] multiplyConcurrentSegment(int[][] A, int[][] B, int rowStart, int rowEnd, int threadCount)
             throws RemoteException {
-        logger.resetLocalIds();
         // Valida límites
         if (rowStart < 0) rowStart = 0;
         if (rowEnd > A.length) rowEnd = A.length;
         if (rowStart >= rowEnd) return new int[0][0];
+        // Solo las filas del segmento pasan a la variante ligera (antes se reservaba un C de A.length filas)
+        return multiplyConcurrentSegment(Matrix.ofRows(A, rowStart, rowEnd), Matrix.of(B), rowStart, threadCount).toArray();
+    }
 
-        int p = B[0].length;
-        int rows = rowEnd - rowStart;
-        int[][] Cseg = new int[rows][p];
-
-        // Crear una matriz temporal Clocal que representa las filas globales[rowStart..rowEnd)
-        int[][] Clocal = new int[A.length][p]; // grande, pero solo se llenarán las filas necesarias
-        int useThreads = (threadCount <= 0) ? Runtime.getRuntime().availableProcessors() : threadCount;
+    @Override
+    public Matrix multiplyConcurrentSegment(Matrix A_rows, Matrix B, int rowOffset, int threadCount)
+            throws RemoteException {
+        if (A_rows == null || A_rows.rows() == 0) return new Matrix(0, B.cols());
+        // El resultado se calcula directamente en una Matrix de A_rows.rows() x B.cols()
+        return admitted("multiplyConcurrentSegment", NO_JOB, cost(A_rows, B), threadCount, bytes(A_rows, B),
+                job -> computeBlock(A_rows, B, threadCount, System.currentTimeMillis(), job, -1).matrix);
+    }
 
-    // Info eliminada, solo logs de hilos
-
-        if (threadCount <= 0) {
-            int threshold = Math.max(1, Math.max(1, rows / (useThreads * 2)));
-            // usar pool compartido
-            sharedPool.invoke(new MatrixMultiplyTask(A, B, Clocal, rowStart, rowEnd, threshold));
-        } else {
-            ForkJoinPool pool = new ForkJoinPool(useThreads);
-            int threshold = Math.max(1, Math.max(1, rows / (useThreads * 2)));
-            pool.invoke(new MatrixMultiplyTask(A, B, Clocal, rowStart, rowEnd, threshold));
-            pool.shutdown();
-        }
+    @Override
+    public BlockResult multiplyBlock(int[][] A_block, int[][] B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        if (A_block == null || A_block.length == 0) return new BlockResult(new int[0][0], 0);
+        BlockResult r = multiplyBlock(Matrix.of(A_block), Matrix.of(B), blockIndex, rowOffset, threadCount);
+        return new BlockResult(r.matrix.toArray(), r.processingTimeMillis);
+    }
 
-        // Copiar solo el segmento requerido a Cseg
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(Clocal[rowStart + i], 0, Cseg[i], 0, p);
-        }
-    // Success eliminado, solo logs de hilos
-        return Cseg;
+    @Override
+    public BlockResult multiplyBlock(Matrix A_block, Matrix B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return multiplyBlock(NO_JOB, A_block, B, blockIndex, rowOffset, threadCount);
     }
 
     @Override
-    public BlockResult multiplyBlock(int[][] A_block, int[][] B, int blockIndex, int rowOffset, int threadCount)
+    public BlockResult multiplyBlock(long jobId, Matrix A_block, Matrix B, int blockIndex, int rowOffset, int threadCount)
             throws RemoteException {
-        long startTime = System.currentTimeMillis();
-        logger.resetLocalIds();
-        logger.setCurrentBlockIndex(blockIndex);
-        resetProgress(A_block.length);
-        int actualThreads = (threadCount <= 0) ? Runtime.getRuntime().availableProcessors() : threadCount;
-        // Info eliminada, solo logs de hilos
         // A_block: rows x m (rows contiguas de A a partir de rowOffset)
+        if (A_block == null || A_block.rows() == 0) return new BlockResult(new Matrix(0, 0), 0);
+        // El tiempo de proceso no incluye la espera en la cola del scheduler
+        return admitted("multiplyBlock", jobId, cost(A_block, B), threadCount, bytes(A_block, B),
+                job -> computeBlock(A_block, B, threadCount, System.currentTimeMillis(), job, blockIndex));
+    }
+
+    @Override
+    public BlockResult multiplyBlockPrepared(String bHandle, int[][] A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
         if (A_block == null || A_block.length == 0) return new BlockResult(new int[0][0], 0);
-        int rows = A_block.length;
-        int p = B[0].length;
+        BlockResult r = multiplyBlockPrepared(bHandle, Matrix.of(A_block), blockIndex, rowOffset, threadCount);
+        return new BlockResult(r.matrix.toArray(), r.processingTimeMillis);
+    }
 
-        int[][] Cseg = new int[rows][p];
+    @Override
+    public BlockResult multiplyBlockPrepared(String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        return multiplyBlockPrepared(NO_JOB, bHandle, A_block, blockIndex, rowOffset, threadCount);
+    }
 
+    @Override
+    public BlockResult multiplyBlockPrepared(long jobId, String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        Matrix B = preparedBs.get(bHandle);
+        if (B == null) throw new UnknownBHandleException(bHandle);
+        int rows = (A_block == null) ? 0 : A_block.rows();
+        if (rows == 0) return new BlockResult(new Matrix(0, 0), 0);
+        return admitted("multiplyBlockPrepared", jobId, cost(A_block, B), threadCount, bytes(A_block),
+                job -> computeBlock(A_block, B, threadCount, System.currentTimeMillis(), job, blockIndex));
+    }
+
+    // Calcula A_block x B con MatrixMultiplyBlockTask (pool compartido, como mucho threadCount hilos si threadCount > 0).
+    // blockIndex (-1 si no es un bloque) va en el contexto de log que comparten las tareas del bloque.
+    private BlockResult computeBlock(Matrix A_block, Matrix B, int threadCount, long startTime, JobRegistry.Job job, int blockIndex)
+            throws JobCancelledException {
+        int rows = A_block.rows();
+        Matrix Cseg = new Matrix(rows, B.cols());
         int useThreads = (threadCount <= 0) ? Runtime.getRuntime().availableProcessors() : threadCount;
 
-        if (threadCount <= 0) {
-            int threshold = Math.max(1, rows / (useThreads * 2));
-            sharedPool.invoke(new MatrixMultiplyBlockTask(A_block, B, Cseg, 0, rows, threshold));
-        } else {
-            ForkJoinPool pool = new ForkJoinPool(useThreads);
-            int threshold = Math.max(1, rows / (useThreads * 2));
-            pool.invoke(new MatrixMultiplyBlockTask(A_block, B, Cseg, 0, rows, threshold));
-            pool.shutdown();
-        }
+        // Info eliminada, solo logs de hilos
+
+        int threshold = Math.max(1, rows / (useThreads * 2));
+        LogContext log = logger.newContext(blockIndex);
+        invoke((s0, s1) -> new MatrixMultiplyBlockTask(A_block, B, Cseg, s0, s1, threshold, job, log), 0, rows, threshold, threadCount, job);
 
         long processingTime = System.currentTimeMillis() - startTime;
         // Success eliminado, solo logs de hilos
         return new BlockResult(Cseg, processingTime);
     }
 
+    // Filas por trozo en los bloques en streaming y tiempo tras el que se descarta un stream abandonado
+    private static final int STREAM_CHUNK_ROWS = Math.max(1, Integer.getInteger("server.stream.chunkRows", 32));
+    private static final long STREAM_TTL_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("server.stream.ttlSeconds", 300));
+    private final ConcurrentHashMap<Long, BlockStream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong nextStreamId = new AtomicLong(1);
+
     @Override
-    public BlockResult multiplyBlockPrepared(int[][] A_block, int blockIndex, int rowOffset, int threadCount)
+    public long submitBlockPrepared(String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
             throws RemoteException {
-        long startTime = System.currentTimeMillis();
-        logger.resetLocalIds();
-        logger.setCurrentBlockIndex(blockIndex);
-        if (preparedB == null) throw new RemoteException("No B prepared on server. Call prepareB(B) first.");
-        int rows = (A_block == null) ? 0 : A_block.length;
-        if (rows == 0) return new BlockResult(new int[0][0], 0);
-        int p = preparedB[0].length;
-
-        int[][] Cseg = new int[rows][p];
-        int useThreads = (threadCount <= 0) ? Runtime.getRuntime().availableProcessors() : threadCount;
+        return submitBlockPrepared(NO_JOB, bHandle, A_block, blockIndex, rowOffset, threadCount);
+    }
 
-        // Info eliminada, solo logs de hilos
+    @Override
+    public long submitBlockPrepared(long jobId, String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException {
+        Matrix B = preparedBs.get(bHandle);
+        if (B == null) throw new UnknownBHandleException(bHandle);
+        ServerMetrics.MethodStats stats = metrics.method("submitBlockPrepared");
+        stats.calls.increment();
+        stats.bytesIn.add(bytes(A_block));
+        // Streams que el cliente dejó de leer (cliente caído): liberar sus trozos
+        streams.values().removeIf(st -> st.idleFor(STREAM_TTL_NANOS));
 
-        if (threadCount <= 0) {
-            int threshold = Math.max(1, rows / (useThreads * 2));
-            sharedPool.invoke(new MatrixMultiplyBlockTask(A_block, preparedB, Cseg, 0, rows, threshold));
-        } else {
-            ForkJoinPool pool = new ForkJoinPool(useThreads);
-            int threshold = Math.max(1, rows / (useThreads * 2));
-            pool.invoke(new MatrixMultiplyBlockTask(A_block, preparedB, Cseg, 0, rows, threshold));
-            pool.shutdown();
+        int rows = (A_block == null) ? 0 : A_block.rows();
+        int chunkCount = Math.max(1, (rows + STREAM_CHUNK_ROWS - 1) / STREAM_CHUNK_ROWS);
+        BlockStream stream = new BlockStream(nextStreamId.getAndIncrement(), chunkCount);
+        streams.put(stream.id, stream);
+        if (rows == 0) {
+            stream.publish(0, new Matrix(0, B.cols()));
+            return stream.id;
         }
 
-        long processingTime = System.currentTimeMillis() - startTime;
-        // Success eliminado, solo logs de hilos
-        return new BlockResult(Cseg, processingTime);
+        // El trabajo y su turno de cálculo siguen en curso hasta que termina (o falla) el último trozo.
+        // submit espera turno igual que multiplyBlock: la cola del scheduler frena al cliente.
+        long queuedAt = System.nanoTime();
+        JobRegistry.Job job;
+        ComputeScheduler.Ticket ticket;
+        try {
+            job = jobs.begin(jobId);
+        } catch (RemoteException | RuntimeException ex) {
+            streams.remove(stream.id);
+            stats.errors.increment();
+            throw ex;
+        }
+        // Todos los trozos a la vez, o threadCount carriles en el pool compartido si se pidió límite
+        int lanes = (threadCount <= 0) ? chunkCount : Math.min(threadCount, chunkCount);
+        try {
+            ticket = scheduler.acquire(job, cost(A_block, B), lanes);
+        } catch (RemoteException | RuntimeException ex) {
+            streams.remove(stream.id);
+            jobs.end(job);
+            stats.errors.increment();
+            throw ex;
+        }
+        long startedAt = System.nanoTime();
+        stats.queueWait.recordNanos(startedAt - queuedAt);
+        AtomicInteger piecesLeft = new AtomicInteger(chunkCount);
+        // El turno y el trabajo se devuelven una sola vez: al terminar el último trozo o si falla el envío al pool
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable finish = () -> {
+            if (finished.compareAndSet(false, true)) {
+                scheduler.release(ticket);
+                jobs.end(job);
+            }
+        };
+        Runnable pieceDone = () -> {
+            if (piecesLeft.decrementAndGet() == 0) {
+                // Tiempo de cálculo: hasta que termina el último trozo (los trozos se leen con nextChunk)
+                stats.compute.recordNanos(System.nanoTime() - startedAt);
+                finish.run();
+            }
+        };
+        LogContext log = logger.newContext(blockIndex);
+        try {
+            RowLanes.execute(sharedPool, 0, rows, lanes, STREAM_CHUNK_ROWS, (start, end) -> {
+                try {
+                    ServerLogger.Span span = logger.threadStart(log, start, end);
+                    // El trozo se calcula en su propia Matrix para poder enviarlo sin esperar al resto del bloque
+                    Matrix Cchunk = new Matrix(end - start, B.cols());
+                    job.checkCancelled();
+                    KERNEL.multiply(A_block, B, Cchunk, start, end, start, job::checkpoint);
+                    if (logger.progressEnabled()) for (int i = start; i < end; i++) logger.threadProgress(span, i);
+                    logger.threadComplete(span);
+                    metrics.rowsComputed.add(end - start);
+                    stream.publish(start, Cchunk);
+                } catch (CancellationException ex) {
+                    // Cancelado a mitad del trozo (checkpoint del kernel): nextChunk lo entrega como cancelación
+                    stream.fail(new JobCancelledException(job.id));
+                } catch (Throwable t) {
+                    stats.errors.increment();
+                    stream.fail(t);
+                } finally {
+                    pieceDone.run();
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Pool cerrado o envío rechazado: los carriles que sí salieron publican en un stream ya retirado
+            stream.fail(ex);
+            streams.remove(stream.id);
+            finish.run();
+            stats.errors.increment();
+            throw ex;
+        }
+        return stream.id;
+    }
+
+    @Override
+    public BlockChunk nextChunk(long streamId, long timeoutMillis) throws RemoteException {
+        BlockStream stream = streams.get(streamId);
+        if (stream == null) throw new RemoteException("Stream desconocido o ya terminado: " + streamId);
+        try {
+            BlockChunk c = stream.next(timeoutMillis);
+            metrics.count("nextChunk", 0, (c == null) ? 0 : bytes(c.rows));
+            if (c != null && c.last) streams.remove(streamId);
+            return c;
+        } catch (JobCancelledException ex) {
+            streams.remove(streamId);
+            throw ex;
+        } catch (Throwable t) {
+            streams.remove(streamId);
+            throw new RemoteException("Fallo calculando el bloque en streaming", t);
+        }
     }
 
     // Tarea ForkJoin para bloques A_block que comienzan en índice 0..rows-1
     private class MatrixMultiplyBlockTask extends RecursiveAction {
-        private final int[][] Ablock, B, Cseg;
+        private final Matrix Ablock, B, Cseg;
         private final int rowStart, rowEnd, threshold;
-        MatrixMultiplyBlockTask(int[][] Ablock, int[][] B, int[][] Cseg, int rowStart, int rowEnd, int threshold) {
+        private final JobRegistry.Job job;
+        private final LogContext log;
+        MatrixMultiplyBlockTask(Matrix Ablock, Matrix B, Matrix Cseg, int rowStart, int rowEnd, int threshold,
+                                JobRegistry.Job job, LogContext log) {
             this.Ablock = Ablock; this.B = B; this.Cseg = Cseg;
             this.rowStart = rowStart; this.rowEnd = rowEnd; this.threshold = threshold;
+            this.job = job; this.log = log;
         }
         @Override
         protected void compute() {
             if (rowEnd - rowStart <= threshold) {
-                int p = B[0].length, m = B.length;
                 // --- LOGS DE INICIO DE BLOQUE/HILO ---
-                logger.threadStart(rowStart, rowStart, rowEnd);
-                for (int i = rowStart; i < rowEnd; i++) {
-                    for (int j = 0; j < p; j++) {
-                        int s = 0;
-                        for (int k = 0; k < m; k++) {
-                            s += Ablock[i][k] * B[k][j];
-                        }
-                        Cseg[i][j] += s;
-                    }
-                    // --- LOGS DE PROGRESO POR FILA ---
-                    logger.threadProgress(rowStart, i);
-                }
+                ServerLogger.Span span = logger.threadStart(log, rowStart, rowEnd);
+                // Una sola llamada al kernel por hoja, así cada panel de B se empaqueta una vez y sirve para
+                // todas las filas; la cancelación se mira antes de cada panel (checkpoint del kernel)
+                KERNEL.multiply(Ablock, B, Cseg, rowStart, rowEnd, 0, job::checkpoint);
+                // --- LOGS DE PROGRESO POR FILA ---
+                if (logger.progressEnabled()) for (int i = rowStart; i < rowEnd; i++) logger.threadProgress(span, i);
                 // --- LOGS DE FIN DE BLOQUE/HILO ---
-                logger.threadComplete(rowStart);
-                // Actualizar progreso global
-                updateProgress(rowEnd - rowStart);
+                logger.threadComplete(span);
+                metrics.rowsComputed.add(rowEnd - rowStart);
             } else {
                 int mid = (rowStart + rowEnd) / 2;
                 invokeAll(
-                    new MatrixMultiplyBlockTask(Ablock, B, Cseg, rowStart, mid, threshold),
-                    new MatrixMultiplyBlockTask(Ablock, B, Cseg, mid, rowEnd, threshold)
+                    new MatrixMultiplyBlockTask(Ablock, B, Cseg, rowStart, mid, threshold, job, log),
+                    new MatrixMultiplyBlockTask(Ablock, B, Cseg, mid, rowEnd, threshold, job, log)
                 );
             }
         }
     }
 }
-
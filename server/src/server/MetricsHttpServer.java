@@ -0,0 +1,58 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.rmi.RemoteException;
+import java.util.concurrent.Executors;
+
+/**
+ * Expone getMetrics() por HTTP (GET /metrics, text/plain) para leerlo con curl o un recolector de
+ * métricas sin cliente RMI. Un único hilo daemon atiende las peticiones.
+ */
+class MetricsHttpServer {
+    private final HttpServer http;
+
+    MetricsHttpServer(MatrixMultiplierImpl impl, String host, int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(host, port), 0);
+        http.createContext("/metrics", ex -> serve(ex, impl));
+        http.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    void start() {
+        http.start();
+    }
+
+    int port() {
+        return http.getAddress().getPort();
+    }
+
+    private static void serve(HttpExchange ex, MatrixMultiplierImpl impl) throws IOException {
+        try {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                ex.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body;
+            try {
+                body = impl.getMetrics().getBytes(StandardCharsets.UTF_8);
+            } catch (RemoteException e) {
+                body = ("# error: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8);
+            }
+            ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            ex.close();
+        }
+    }
+}
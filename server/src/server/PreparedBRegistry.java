@@ -0,0 +1,145 @@
+package server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import shared.Matrix;
+import shared.MatrixDigest;
+
+/**
+ * Caché concurrente de matrices B preparadas (prepareB), direccionada por contenido.
+ *
+ * - El handle de cada B es su huella (MatrixDigest): Bs distintas nunca se pisan entre sí y
+ *   los trabajos que reutilizan la misma B la comparten sin volver a subirla (hasB).
+ * - Las entradas sin uso durante más de ttlMillis caducan.
+ * - La memoria total (4 bytes por elemento) se limita a maxBytes; al superarla se expulsa
+ *   la entrada usada hace más tiempo (LRU).
+ * - release (clearPreparedB) no borra: como el handle es el contenido, otra sesión puede estar usando
+ *   la misma B. La entrada liberada es la primera candidata a expulsión mientras nadie vuelva a usarla.
+ *
+ * Configuración: -Dserver.bcache.maxMB (por defecto 1/4 del heap) y -Dserver.bcache.ttlSeconds (600).
+ */
+public class PreparedBRegistry {
+    private static class Entry {
+        final Matrix b;
+        final long bytes;
+        volatile long lastAccessNanos;
+        // Liberada con release y sin usar desde entonces: se expulsa antes que las demás
+        volatile boolean released;
+        Entry(Matrix b, long bytes) {
+            this.b = b;
+            this.bytes = bytes;
+            this.lastAccessNanos = System.nanoTime();
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    // Solo serializa las expulsiones; las búsquedas (get) no toman el lock
+    private final Object evictionLock = new Object();
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    public PreparedBRegistry(long maxBytes, long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    // Registro configurado con las propiedades del sistema
+    public static PreparedBRegistry fromSystemProperties() {
+        long defaultMB = Math.max(64, Runtime.getRuntime().maxMemory() / 4 / (1024 * 1024));
+        long maxMB = Long.getLong("server.bcache.maxMB", defaultMB);
+        long ttlSeconds = Long.getLong("server.bcache.ttlSeconds", 600);
+        return new PreparedBRegistry(maxMB * 1024 * 1024, ttlSeconds * 1000);
+    }
+
+    // Guarda B y devuelve su handle (la huella). Lanza IllegalArgumentException si B no cabe en el presupuesto.
+    public String put(Matrix B) {
+        String handle = MatrixDigest.of(B);
+        if (get(handle) != null) return handle; // ya estaba (get la marca como usada)
+        long bytes = 4L * B.rows() * B.cols();
+        if (bytes > maxBytes) {
+            throw new IllegalArgumentException(String.format("B (%d bytes) excede el presupuesto de caché (%d bytes)", bytes, maxBytes));
+        }
+        synchronized (evictionLock) {
+            evictExpired();
+            while (usedBytes.get() + bytes > maxBytes && evictLeastRecentlyUsed()) {
+                // sigue expulsando hasta que quepa
+            }
+            Entry previous = entries.put(handle, new Entry(B.compact(), bytes));
+            if (previous != null) usedBytes.addAndGet(-previous.bytes);
+            usedBytes.addAndGet(bytes);
+        }
+        return handle;
+    }
+
+    // true si una B de rows x cols cabe en el presupuesto de la caché
+    public boolean fits(int rows, int cols) {
+        return 4L * rows * cols <= maxBytes;
+    }
+
+    // true si la B con esa huella está en caché (y la marca como usada)
+    public boolean contains(String handle) {
+        return get(handle) != null;
+    }
+
+    // B asociada al handle, o null si no existe o caducó
+    public Matrix get(String handle) {
+        if (handle == null) return null;
+        Entry e = entries.get(handle);
+        if (e == null) return null;
+        long now = System.nanoTime();
+        if (now - e.lastAccessNanos > ttlNanos) {
+            remove(handle);
+            return null;
+        }
+        e.lastAccessNanos = now;
+        e.released = false;
+        return e.b;
+    }
+
+    // El cliente ya no necesita la B: queda disponible (para él y para otros) hasta que haga falta
+    // sitio, caduque o se vuelva a usar
+    public void release(String handle) {
+        if (handle == null) return;
+        Entry e = entries.get(handle);
+        if (e != null) e.released = true;
+    }
+
+    public boolean remove(String handle) {
+        if (handle == null) return false;
+        Entry e = entries.remove(handle);
+        if (e == null) return false;
+        usedBytes.addAndGet(-e.bytes);
+        return true;
+    }
+
+    public int size() { return entries.size(); }
+    public long usedBytes() { return usedBytes.get(); }
+    public long maxBytes() { return maxBytes; }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (now - e.getValue().lastAccessNanos > ttlNanos) remove(e.getKey());
+        }
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        String oldest = null;
+        long oldestAccess = Long.MAX_VALUE;
+        boolean oldestReleased = false;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            long access = e.getValue().lastAccessNanos;
+            boolean released = e.getValue().released;
+            // Primero las liberadas; dentro de cada grupo, la usada hace más tiempo
+            if (oldest == null || (released && !oldestReleased)
+                    || (released == oldestReleased && access - oldestAccess < 0)) {
+                oldest = e.getKey();
+                oldestAccess = access;
+                oldestReleased = released;
+            }
+        }
+        return oldest != null && remove(oldest);
+    }
+}
@@ -2,6 +2,7 @@ package server;
 
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import shared.BinaryProtocol;
 
 public class ServerApp {
     public static void main(String[] args) {
@@ -16,7 +17,23 @@ public class ServerApp {
             MatrixMultiplierImpl impl = new MatrixMultiplierImpl();
             Registry reg = LocateRegistry.createRegistry(1099);
             reg.rebind("MatrixService", impl);
-            System.out.printf("Servidor RMI listo en %s:1099%n", myIp);
+            System.out.printf("Servidor RMI listo en %s:1099 (%s)%n", myIp, impl.getCapabilities());
+
+            // Transporte binario (sin serialización Java) junto al registro RMI; -Dserver.binary.port=0 lo desactiva
+            int binaryPort = Integer.getInteger("server.binary.port", BinaryProtocol.DEFAULT_PORT);
+            if (binaryPort > 0) {
+                BinaryServer binary = new BinaryServer(impl, myIp, binaryPort);
+                binary.start();
+                System.out.printf("Transporte binario escuchando en %s:%d%n", myIp, binary.port());
+            }
+
+            // Métricas en texto plano (GET /metrics); -Dserver.metrics.port=0 lo desactiva
+            int metricsPort = Integer.getInteger("server.metrics.port", 1101);
+            if (metricsPort > 0) {
+                MetricsHttpServer metrics = new MetricsHttpServer(impl, myIp, metricsPort);
+                metrics.start();
+                System.out.printf("Métricas en http://%s:%d/metrics%n", myIp, metrics.port());
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -1,120 +1,220 @@
 package server;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Logs de los hilos de cálculo, asíncronos: los hilos ForkJoin solo copian unos enteros en un buffer
+ * circular sin locks (sin formatear ni tocar System.out) y un único hilo escritor los formatea y los
+ * escribe por lotes. Si el buffer está lleno el evento se descarta (se cuenta y se avisa), nunca se bloquea.
+ *
+ * Cada petición lleva su LogContext (newContext, uno por bloque) y cada tramo de filas que calcula una
+ * tarea su Span (threadStart): no hay estado compartido entre peticiones ni mapas por fila.
+ *
+ * Niveles (-Dserver.log.level): OFF, INFO (inicio/fin de cada tramo y progreso muestreado, por defecto)
+ * y DEBUG (progreso de cada fila). A nivel INFO cada hilo emite como mucho un progreso cada
+ * -Dserver.log.progressMs (por defecto 500). Tamaño del buffer: -Dserver.log.bufferSize (eventos, 8192).
+ */
 public class ServerLogger {
-    private final ConcurrentHashMap<Long, ThreadInfo> threadInfo = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Long, Integer> threadLocalId = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Long, Integer> threadBlockIndex = new ConcurrentHashMap<>();
-    private final ThreadLocal<Integer> localId = ThreadLocal.withInitial(() -> -1);
-    private final AtomicInteger nextLocalId = new AtomicInteger(1);
-    
-    // Obtiene el nombre del hilo real del pool (ej. "ForkJoinPool-1-worker-3" o "pool-1-thread-2")
-    private String poolThreadName() {
-        return Thread.currentThread().getName();
+    public enum Level { OFF, INFO, DEBUG }
+
+    // Tipos de evento
+    private static final int START = 0, PROGRESS = 1, COMPLETE = 2;
+    // Espera del escritor cuando no hay eventos
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    // Índice del hilo del pool, calculado una vez por hilo a partir de su nombre
+    private static final ThreadLocal<Integer> POOL_INDEX =
+            ThreadLocal.withInitial(() -> poolThreadIndex(Thread.currentThread().getName()));
+
+    private final AtomicLong nextRequestId = new AtomicLong(1);
+
+    private final Level level;
+    private final long progressIntervalNanos;
+
+    // Buffer circular multi-productor / un consumidor: published[i] = número de secuencia del evento
+    // escrito en la posición i (lo publica el productor después de rellenar los campos)
+    private final int mask;
+    private final AtomicLongArray published;
+    private final int[] type, block, thread, rowA, rowB;
+    private final long[] request, elapsedNanos;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final AtomicLong dropped = new AtomicLong();
+    private long lastReportedDrops;
+    private final PrintStream out;
+
+    /** Tramo de filas [startRow, endRow) que calcula una tarea; solo lo usa el hilo que lo calcula. */
+    static final class Span {
+        static final Span NONE = new Span(LogContext.NONE, 0, 0, 0, 0);
+
+        final LogContext context;
+        final int thread;
+        final int startRow, endRow;
+        final long startNanos;
+        long lastProgressNanos;
+
+        Span(LogContext context, int thread, int startRow, int endRow, long startNanos) {
+            this.context = context; this.thread = thread;
+            this.startRow = startRow; this.endRow = endRow;
+            this.startNanos = this.lastProgressNanos = startNanos;
+        }
+    }
+
+    public ServerLogger(String serverId) {
+        // serverId ignorado, ya no se usa
+        this(Level.valueOf(System.getProperty("server.log.level", "INFO").toUpperCase()),
+                Long.getLong("server.log.progressMs", 500),
+                Integer.getInteger("server.log.bufferSize", 8192),
+                System.out);
+    }
+
+    ServerLogger(Level level, long progressIntervalMillis, int bufferSize, PrintStream out) {
+        this.level = level;
+        this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, progressIntervalMillis));
+        int capacity = Integer.highestOneBit(Math.max(64, bufferSize - 1) * 2);
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) published.set(i, -1);
+        this.type = new int[capacity];
+        this.block = new int[capacity];
+        this.thread = new int[capacity];
+        this.request = new long[capacity];
+        this.rowA = new int[capacity];
+        this.rowB = new int[capacity];
+        this.elapsedNanos = new long[capacity];
+        this.out = out;
+        if (level != Level.OFF) {
+            Thread writer = new Thread(this::drainLoop, "server-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "server-log-flush"));
+        }
     }
 
-    // Extrae el índice numérico al final del nombre del hilo (ej. 3 o 2)
-    private int poolThreadIndex() {
-        String name = poolThreadName();
+    // Extrae el índice numérico al final del nombre del hilo (ej. "ForkJoinPool-1-worker-3" -> 3); -1 si no hay
+    private static int poolThreadIndex(String name) {
         int i = name.length() - 1;
         while (i >= 0 && Character.isDigit(name.charAt(i))) i--;
-        if (i < name.length() - 1) {
-            try {
-                return Integer.parseInt(name.substring(i + 1));
-            } catch (NumberFormatException ignored) {}
-        }
-        // fallback: usar id local asignado si existe
-        int id = localId.get();
-        return id > 0 ? id : -1;
+        if (i < name.length() - 1 && name.length() - 1 - i <= 9) return Integer.parseInt(name.substring(i + 1));
+        return -1;
     }
 
-    // Llamar a esto al inicio de cada petición para reiniciar la numeración
-    public void resetLocalIds() {
-        nextLocalId.set(1);
-        threadLocalId.clear();
-        threadBlockIndex.clear();
+    // Contexto de una petición (o de un bloque, con su índice global; -1 si no es de un bloque)
+    LogContext newContext(int blockIndex) {
+        if (level == Level.OFF) return LogContext.NONE;
+        return new LogContext(nextRequestId.getAndIncrement(), blockIndex);
     }
 
-    public void setCurrentBlockIndex(int blockIndex) {
-        long javaThreadId = Thread.currentThread().getId();
-        threadBlockIndex.put(javaThreadId, blockIndex);
+    // true si se registra el progreso por fila (para no recorrer las filas si no hace falta)
+    public boolean progressEnabled() {
+        return level != Level.OFF;
     }
 
-    private static class ThreadInfo {
-        LocalDateTime startTime;
-        int startRow;
-        int endRow;
-        ThreadInfo(int startRow, int endRow) {
-            this.startTime = LocalDateTime.now();
-            this.startRow = startRow;
-            this.endRow = endRow;
+    // Log de inicio de un tramo de filas; el Span devuelto se pasa a threadProgress y threadComplete
+    Span threadStart(LogContext ctx, int startRow, int endRow) {
+        if (level == Level.OFF || ctx == LogContext.NONE) return Span.NONE;
+        int poolIndex = POOL_INDEX.get();
+        Span span = new Span(ctx, (poolIndex > 0) ? poolIndex : ctx.nextLocalId(), startRow, endRow, System.nanoTime());
+        publish(START, span, startRow, endRow, 0);
+        return span;
+    }
+
+    // Log de progreso (por fila); a nivel INFO se muestrea cada progressMs
+    void threadProgress(Span span, int currentRow) {
+        if (span == Span.NONE) return;
+        if (level != Level.DEBUG) {
+            long now = System.nanoTime();
+            if (now - span.lastProgressNanos < progressIntervalNanos) return;
+            span.lastProgressNanos = now;
         }
+        publish(PROGRESS, span, currentRow, 0, 0);
     }
 
-    public ServerLogger(String serverId) {
-        // serverId ignorado, ya no se usa
+    // Log de finalización del tramo
+    void threadComplete(Span span) {
+        if (span == Span.NONE) return;
+        publish(COMPLETE, span, span.startRow, span.endRow, System.nanoTime() - span.startNanos);
     }
 
-    // Log de inicio de hilo
-    public void threadStart(int threadId, int startRow, int endRow) {
-        ThreadInfo info = new ThreadInfo(startRow, endRow);
-        long javaThreadId = Thread.currentThread().getId();
-        threadInfo.put(javaThreadId, info);
-        int assignedId = nextLocalId.getAndIncrement();
-        threadLocalId.put(javaThreadId, assignedId);
-        localId.set(assignedId);
-        int poolIdx = poolThreadIndex();
-        String name = poolThreadName();
-        // Mostrar el bloque global y el número de hilo
-        Integer blockIdx = threadBlockIndex.get(javaThreadId);
-        String blockInfo = (blockIdx != null && blockIdx >= 0) ? String.format("[Bloque Global #%d] ", blockIdx + 1) : "";
-        if (poolIdx > 0)
-            System.out.printf("[Paralelo]%s(Hilo #%d) INICIA [Filas: %d-%d]%n", blockInfo, poolIdx, startRow+1, endRow);
-        else
-            System.out.printf("[Paralelo]%s INICIA [Filas: %d-%d]%n", blockInfo, startRow+1, endRow);
+    // Eventos descartados por buffer lleno desde el arranque
+    public long droppedEvents() {
+        return dropped.get();
     }
 
-    // Log de progreso de hilo (por fila)
-    public void threadProgress(int threadId, int currentRow) {
-        long javaThreadId = Thread.currentThread().getId();
-        ThreadInfo info = threadInfo.get(javaThreadId);
-        Integer id = threadLocalId.get(javaThreadId);
-        if (info != null && id != null) {
-            int poolIdx = poolThreadIndex();
-            String name = poolThreadName();
-            Integer blockIdx = threadBlockIndex.get(javaThreadId);
-            String blockInfo = (blockIdx != null && blockIdx >= 0) ? String.format("[Bloque Global #%d] ", blockIdx + 1) : "";
-            if (poolIdx > 0)
-                System.out.printf("[Paralelo]%s(Hilo #%d) fila %d procesando...%n", blockInfo, poolIdx, currentRow+1);
-            else
-                System.out.printf("[Paralelo]%s fila %d procesando...%n", blockInfo, currentRow+1);
+    // Productor: reserva una posición (CAS sobre tail) si hay hueco, copia los campos y la publica
+    private void publish(int eventType, Span span, int a, int b, long elapsed) {
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+        int i = (int) seq & mask;
+        type[i] = eventType;
+        request[i] = span.context.requestId;
+        block[i] = span.context.blockIndex;
+        thread[i] = span.thread;
+        rowA[i] = a;
+        rowB[i] = b;
+        elapsedNanos[i] = elapsed;
+        published.lazySet(i, seq);
+    }
+
+    private void drainLoop() {
+        while (true) {
+            if (!drain()) LockSupport.parkNanos(IDLE_PARK_NANOS);
         }
     }
 
-    // Log de finalización de hilo
-    public void threadComplete(int threadId) {
-        long javaThreadId = Thread.currentThread().getId();
-        ThreadInfo info = threadInfo.get(javaThreadId);
-        Integer id = threadLocalId.get(javaThreadId);
-        if (info != null && id != null) {
-            Duration elapsed = Duration.between(info.startTime, LocalDateTime.now());
-            int poolIdx = poolThreadIndex();
-            String name = poolThreadName();
-            Integer blockIdx = threadBlockIndex.get(javaThreadId);
-            String blockInfo = (blockIdx != null && blockIdx >= 0) ? String.format("[Bloque Global #%d] ", blockIdx + 1) : "";
-            if (poolIdx > 0)
-                System.out.printf("[ÉXITO] [Paralelo]%s(Hilo #%d) TERMINA [Filas: %d-%d] - Tiempo: %.3fs%n", blockInfo, poolIdx, info.startRow+1, info.endRow, elapsed.toMillis()/1000.0);
-            else
-                System.out.printf("[ÉXITO] [Paralelo]%s TERMINA [Filas: %d-%d] - Tiempo: %.3fs%n", blockInfo, info.startRow+1, info.endRow, elapsed.toMillis()/1000.0);
-            threadInfo.remove(javaThreadId);
-            threadLocalId.remove(javaThreadId);
-            threadBlockIndex.remove(javaThreadId);
+    // Consumidor (un solo hilo, o el hook de salida): formatea y escribe lo publicado; true si había algo
+    private synchronized boolean drain() {
+        StringBuilder sb = new StringBuilder();
+        long h = head;
+        long reportedDrops = dropped.get();
+        while (published.get((int) h & mask) == h) {
+            int i = (int) h & mask;
+            format(sb, type[i], request[i], block[i], thread[i], rowA[i], rowB[i], elapsedNanos[i]);
+            h++;
+            head = h;
+            if (sb.length() > 64 * 1024) {
+                out.print(sb);
+                sb.setLength(0);
+            }
         }
+        if (reportedDrops > lastReportedDrops) {
+            sb.append(String.format("[LOG] %d eventos descartados (buffer lleno)%n", reportedDrops - lastReportedDrops));
+            lastReportedDrops = reportedDrops;
+        }
+        if (sb.length() == 0) return false;
+        out.print(sb);
+        out.flush();
+        return true;
     }
-}
 
+    private static void format(StringBuilder sb, int eventType, long requestId, int blockIdx, int threadIdx,
+                               int a, int b, long elapsed) {
+        if (eventType == COMPLETE) sb.append("[ÉXITO] ");
+        sb.append("[Paralelo][Petición #").append(requestId).append(']');
+        if (blockIdx >= 0) sb.append("[Bloque Global #").append(blockIdx + 1).append("] ");
+        if (threadIdx > 0) sb.append("(Hilo #").append(threadIdx).append(") ");
+        else sb.append(' ');
+        switch (eventType) {
+            case START:
+                sb.append("INICIA [Filas: ").append(a + 1).append('-').append(b).append(']');
+                break;
+            case PROGRESS:
+                sb.append("fila ").append(a + 1).append(" procesando...");
+                break;
+            default:
+                sb.append("TERMINA [Filas: ").append(a + 1).append('-').append(b).append("] - Tiempo: ")
+                  .append(String.format("%.3fs", elapsed / 1e9));
+        }
+        sb.append(System.lineSeparator());
+    }
+}
@@ -0,0 +1,95 @@
+package server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores y latencias del servidor. Los hilos de cálculo y de conexión solo hacen incrementos
+ * (LongAdder / LatencyHistogram, sin locks); el texto se genera al pedirlo (getMetrics o GET /metrics).
+ *
+ * Formato: una métrica por línea "nombre{etiquetas} valor", como la exposición en texto de Prometheus.
+ * Las latencias van en microsegundos, con los cuantiles 0.5, 0.9, 0.99 y 0.999 más _count, _sum y _max.
+ */
+final class ServerMetrics {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    /** Métricas de un método remoto. */
+    static final class MethodStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        // Bytes de las matrices recibidas y devueltas (4 por elemento int32), sea cual sea el transporte
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        // Espera en ComputeScheduler y cálculo, por llamada
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        final LatencyHistogram compute = new LatencyHistogram();
+    }
+
+    private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    // Filas de C calculadas por las tareas de bloque (todas las llamadas)
+    final LongAdder rowsComputed = new LongAdder();
+
+    // Transporte binario: tramas y bytes en el socket, y tiempo de decodificar/codificar las matrices
+    final LongAdder binaryFramesIn = new LongAdder();
+    final LongAdder binaryFramesOut = new LongAdder();
+    final LongAdder binaryBytesIn = new LongAdder();
+    final LongAdder binaryBytesOut = new LongAdder();
+    final LatencyHistogram binaryDecode = new LatencyHistogram();
+    final LatencyHistogram binaryEncode = new LatencyHistogram();
+
+    MethodStats method(String name) {
+        return methods.computeIfAbsent(name, k -> new MethodStats());
+    }
+
+    // Cuenta una llamada que no pasa por el scheduler (prepareB, nextChunk, cancel, ...)
+    void count(String name, long bytesIn, long bytesOut) {
+        MethodStats m = method(name);
+        m.calls.increment();
+        m.bytesIn.add(bytesIn);
+        m.bytesOut.add(bytesOut);
+    }
+
+    // Métricas propias; los valores instantáneos (pool, cola, caché) los añade quien las expone con gauge()
+    void render(StringBuilder sb) {
+        gauge(sb, "matrix_uptime_seconds", (System.nanoTime() - startNanos) / 1_000_000_000L);
+        gauge(sb, "matrix_rows_computed_total", rowsComputed.sum());
+        // Orden alfabético para que dos lecturas seguidas se puedan comparar línea a línea
+        for (Map.Entry<String, MethodStats> e : new TreeMap<>(methods).entrySet()) {
+            String label = "method=\"" + e.getKey() + "\"";
+            MethodStats m = e.getValue();
+            gauge(sb, "matrix_calls_total{" + label + "}", m.calls.sum());
+            gauge(sb, "matrix_errors_total{" + label + "}", m.errors.sum());
+            gauge(sb, "matrix_bytes_in_total{" + label + "}", m.bytesIn.sum());
+            gauge(sb, "matrix_bytes_out_total{" + label + "}", m.bytesOut.sum());
+            histogram(sb, "matrix_queue_wait_us", label, m.queueWait);
+            histogram(sb, "matrix_compute_us", label, m.compute);
+        }
+        gauge(sb, "matrix_binary_frames_in_total", binaryFramesIn.sum());
+        gauge(sb, "matrix_binary_frames_out_total", binaryFramesOut.sum());
+        gauge(sb, "matrix_binary_bytes_in_total", binaryBytesIn.sum());
+        gauge(sb, "matrix_binary_bytes_out_total", binaryBytesOut.sum());
+        histogram(sb, "matrix_binary_deserialize_us", null, binaryDecode);
+        histogram(sb, "matrix_binary_serialize_us", null, binaryEncode);
+    }
+
+    static void gauge(StringBuilder sb, String name, Object value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    // Los histogramas sin muestras (métodos que no pasan por el scheduler) no se escriben
+    private static void histogram(StringBuilder sb, String name, String label, LatencyHistogram h) {
+        if (h.count() == 0) return;
+        String prefix = (label == null) ? "" : label + ",";
+        for (double q : QUANTILES) {
+            gauge(sb, name + "{" + prefix + "quantile=\"" + q + "\"}", h.percentile(q));
+        }
+        String suffix = (label == null) ? "" : "{" + label + "}";
+        gauge(sb, name + "_count" + suffix, h.count());
+        gauge(sb, name + "_sum" + suffix, h.sum());
+        gauge(sb, name + "_max" + suffix, h.max());
+    }
+}
@@ -0,0 +1,104 @@
+package shared;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel SIMD con jdk.incubator.vector (AVX2/AVX-512 según el hardware).
+ *
+ * Vectoriza sobre las columnas de salida: para cada fila i y cada grupo de LANES columnas j
+ * mantiene C[i][j..j+LANES) en un registro y acumula a[i][k] * B[k][j..j+LANES) sobre todo el
+ * panel k, de modo que C solo se lee y escribe una vez por panel. B en orden por filas ya está
+ * empaquetado a lo largo de j, así que no hace falta transponerlo.
+ *
+ * Se compila aparte (shared/src-vector) con --add-modules jdk.incubator.vector y se carga por
+ * reflexión desde MatrixKernels.select("vector"); si no está disponible se usa BlockedKernel.
+ * Usa los mismos tamaños de tile que BlockedKernel (matrix.tile.l1 / matrix.tile.l2).
+ */
+public final class VectorKernel implements MatrixKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int l1Tile;
+    private final int l2Tile;
+
+    public VectorKernel() {
+        this(BlockedKernel.defaults().l1Tile(), BlockedKernel.defaults().l2Tile());
+    }
+
+    public VectorKernel(int l1Tile, int l2Tile) {
+        if (l1Tile <= 0 || l2Tile <= 0) throw new IllegalArgumentException("Los tamaños de tile deben ser > 0");
+        this.l1Tile = l1Tile;
+        this.l2Tile = l2Tile;
+    }
+
+    @Override
+    public String name() { return MatrixKernels.VECTOR + "(" + SPECIES.length() + "x32)"; }
+
+    @Override
+    public void multiply(int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int cRowOffset, Runnable checkpoint) {
+        if (rowStart >= rowEnd) return;
+        int m = B.length, p = B[0].length;
+        int lanes = SPECIES.length();
+        for (int jj = 0; jj < p; jj += l1Tile) {
+            int jEnd = Math.min(p, jj + l1Tile);
+            int jVecEnd = jj + SPECIES.loopBound(jEnd - jj);
+            for (int kk = 0; kk < m; kk += l2Tile) {
+                checkpoint.run();
+                int kEnd = Math.min(m, kk + l2Tile);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    int[] Ai = A[i];
+                    int[] Ci = C[i - cRowOffset];
+                    for (int j = jj; j < jVecEnd; j += lanes) {
+                        IntVector acc = IntVector.fromArray(SPECIES, Ci, j);
+                        for (int k = kk; k < kEnd; k++) {
+                            acc = acc.add(IntVector.fromArray(SPECIES, B[k], j).mul(Ai[k]));
+                        }
+                        acc.intoArray(Ci, j);
+                    }
+                    // Cola escalar (columnas que no llenan un vector)
+                    for (int j = jVecEnd; j < jEnd; j++) {
+                        int s = Ci[j];
+                        for (int k = kk; k < kEnd; k++) s += Ai[k] * B[k][j];
+                        Ci[j] = s;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void multiply(Matrix A, Matrix B, Matrix C, int rowStart, int rowEnd, int cRowOffset, Runnable checkpoint) {
+        if (rowStart >= rowEnd) return;
+        int m = B.rows(), p = B.cols();
+        int[] a = A.data(), b = B.data(), c = C.data();
+        int aStride = A.stride(), bStride = B.stride(), cStride = C.stride();
+        int lanes = SPECIES.length();
+        for (int jj = 0; jj < p; jj += l1Tile) {
+            int jEnd = Math.min(p, jj + l1Tile);
+            int jVecEnd = jj + SPECIES.loopBound(jEnd - jj);
+            for (int kk = 0; kk < m; kk += l2Tile) {
+                checkpoint.run();
+                int kEnd = Math.min(m, kk + l2Tile);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    int aRow = A.offset() + i * aStride;
+                    int cRow = C.offset() + (i - cRowOffset) * cStride;
+                    for (int j = jj; j < jVecEnd; j += lanes) {
+                        IntVector acc = IntVector.fromArray(SPECIES, c, cRow + j);
+                        int bIdx = B.offset() + kk * bStride + j;
+                        for (int k = kk; k < kEnd; k++, bIdx += bStride) {
+                            acc = acc.add(IntVector.fromArray(SPECIES, b, bIdx).mul(a[aRow + k]));
+                        }
+                        acc.intoArray(c, cRow + j);
+                    }
+                    // Cola escalar (columnas que no llenan un vector)
+                    for (int j = jVecEnd; j < jEnd; j++) {
+                        int s = c[cRow + j];
+                        int bIdx = B.offset() + kk * bStride + j;
+                        for (int k = kk; k < kEnd; k++, bIdx += bStride) s += a[aRow + k] * b[bIdx];
+                        c[cRow + j] = s;
+                    }
+                }
+            }
+        }
+    }
+}
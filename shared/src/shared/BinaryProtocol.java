@@ -0,0 +1,351 @@
+package shared;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo binario por TCP (alternativa a RMI + serialización Java) para las operaciones de MatrixMultiplier.
+ *
+ * Cada mensaje es una trama: [int longitud][contenido], en little-endian.
+ * - Petición:  [byte op][argumentos]
+ * - Respuesta: [byte estado][resultado] si estado == STATUS_OK, o [String mensaje/handle] si no.
+ * Las matrices viajan como [int filas][int cols][filas*cols ints] copiados en bloque desde Matrix.data()
+ * a un ByteBuffer directo (sin ObjectOutputStream ni un objeto por fila), o codificadas con MatrixCodec
+ * cuando ocupan bastante menos (-Dmatrix.codec).
+ *
+ * El servidor escucha en -Dserver.binary.port (por defecto DEFAULT_PORT) junto al registro RMI;
+ * en el cliente se usa client.BinaryTransportStub.
+ */
+public final class BinaryProtocol {
+    public static final int DEFAULT_PORT = 1100;
+
+    public static final byte OP_MULTIPLY = 1;
+    public static final byte OP_MULTIPLY_CONCURRENT = 2;
+    public static final byte OP_MULTIPLY_BLOCK = 3;
+    public static final byte OP_MULTIPLY_BLOCK_PREPARED = 4;
+    public static final byte OP_PREPARE_B = 5;
+    public static final byte OP_CLEAR_B = 6;
+    public static final byte OP_HAS_B = 7;
+    public static final byte OP_MULTIPLY_STRASSEN = 8;
+    public static final byte OP_GET_CAPABILITIES = 9;
+    public static final byte OP_SUBMIT_BLOCK_PREPARED = 10;
+    public static final byte OP_NEXT_CHUNK = 11;
+    public static final byte OP_MULTIPLY_TYPED = 12;
+    // Variantes con jobId (primer argumento: long) y cancelación
+    public static final byte OP_MULTIPLY_CONCURRENT_JOB = 13;
+    public static final byte OP_MULTIPLY_BLOCK_JOB = 14;
+    public static final byte OP_MULTIPLY_BLOCK_PREPARED_JOB = 15;
+    public static final byte OP_SUBMIT_BLOCK_PREPARED_JOB = 16;
+    public static final byte OP_CANCEL = 17;
+    public static final byte OP_SET_JOB_PRIORITY = 18;
+    public static final byte OP_MULTIPLY_SEGMENT = 19;
+    // Operandos en ficheros del servidor (server.dataDir)
+    public static final byte OP_PREPARE_B_FROM_FILE = 20;
+    public static final byte OP_MULTIPLY_BLOCK_FROM_FILE = 21;
+    public static final byte OP_MULTIPLY_BLOCK_FROM_FILE_TO_FILE = 22;
+    public static final byte OP_GET_METRICS = 23;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+    public static final byte STATUS_UNKNOWN_HANDLE = 2;
+    // El mensaje es el jobId en decimal
+    public static final byte STATUS_CANCELLED = 3;
+    // El mensaje es "enCola:retryAfterMillis"
+    public static final byte STATUS_BUSY = 4;
+
+    // Formato de cada matriz dentro de una trama (la codificación la decide quien envía, ver MatrixCodec)
+    public static final byte FORMAT_RAW = 0;
+    public static final byte FORMAT_ENCODED = 1;
+
+    /**
+     * Tamaño máximo de una trama (y de una matriz decodificada, ver MatrixCodec): -Dbinary.maxFrameBytes.
+     * Por defecto el presupuesto por defecto de la caché de B (1/4 del heap, mínimo 64 MB) más 1 MB para
+     * el resto de argumentos: la mayor B que el servidor puede preparar cabe en una trama.
+     * Una cabecera con una longitud mayor se rechaza antes de reservar el buffer.
+     */
+    public static final int MAX_FRAME_BYTES = maxFrameBytes();
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    // Un buffer que creció por encima de esto vuelve a INITIAL_BUFFER_BYTES al empezar la trama siguiente
+    // (por debajo se conserva: los bloques habituales no reservan memoria directa en cada trama)
+    private static final int RETAINED_BUFFER_BYTES = 8 * 1024 * 1024;
+
+    private static int maxFrameBytes() {
+        long defaultBytes = Math.max(64L << 20, Runtime.getRuntime().maxMemory() / 4) + (1 << 20);
+        long bytes = Long.getLong("binary.maxFrameBytes", defaultBytes);
+        return (int) Math.max(INITIAL_BUFFER_BYTES, Math.min(Integer.MAX_VALUE - 64, bytes));
+    }
+
+    private BinaryProtocol() {}
+
+    /**
+     * Conexión con un buffer directo reutilizable para escribir y leer tramas.
+     * No es thread-safe: cada hilo usa su propia conexión (el cliente mantiene un pool).
+     */
+    public static final class Connection implements Closeable {
+        private final SocketChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocateDirect(4).order(ByteOrder.LITTLE_ENDIAN);
+        private ByteBuffer buf = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        // Bytes en el socket (cabecera incluida) de la última trama recibida o enviada
+        private int lastFrameBytes;
+
+        public Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            channel.configureBlocking(true);
+            channel.socket().setTcpNoDelay(true);
+        }
+
+        // --- escritura ---
+
+        // Empieza una trama nueva (se reservan 4 bytes para la longitud)
+        public void begin() {
+            reset();
+            buf.position(4);
+        }
+
+        public void putByte(byte v) { ensure(1); buf.put(v); }
+        public void putInt(int v) { ensure(4); buf.putInt(v); }
+        public void putLong(long v) { ensure(8); buf.putLong(v); }
+        public void putDouble(double v) { ensure(8); buf.putDouble(v); }
+        public void putBoolean(boolean v) { putByte(v ? (byte) 1 : (byte) 0); }
+
+        // null => longitud -1
+        public void putString(String s) {
+            if (s == null) { putInt(-1); return; }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buf.put(bytes);
+        }
+
+        // [byte formato][...]: FORMAT_RAW => [filas][cols][ints]; FORMAT_ENCODED => MatrixCodec.Encoded
+        public void putMatrix(Matrix M) {
+            MatrixCodec.Encoded e = MatrixCodec.encode(M, MatrixCodec.DEFAULT_MODE);
+            if (e != null) {
+                putByte(FORMAT_ENCODED);
+                putInt(e.rows);
+                putInt(e.cols);
+                putInt(e.base);
+                putByte((byte) e.bits);
+                putBoolean(e.deflated);
+                putInt(e.packedLength);
+                putInt(e.payload.length);
+                ensure(e.payload.length);
+                buf.put(e.payload);
+                return;
+            }
+            putByte(FORMAT_RAW);
+            int rows = M.rows(), cols = M.cols();
+            putInt(rows);
+            putInt(cols);
+            long bytes = 4L * rows * cols;
+            if (bytes > MAX_FRAME_BYTES) throw new IllegalArgumentException("Matriz demasiado grande para una trama: " + rows + "x" + cols);
+            ensure((int) bytes);
+            if (M.isCompact()) {
+                buf.asIntBuffer().put(M.data(), M.offset(), rows * cols);
+            } else {
+                java.nio.IntBuffer ib = buf.asIntBuffer();
+                for (int i = 0; i < rows; i++) ib.put(M.data(), M.index(i, 0), cols);
+            }
+            buf.position(buf.position() + (int) bytes);
+        }
+
+        public void putCapabilities(ServerCapabilities c) {
+            putInt(c.cores);
+            putLong(c.maxHeapBytes);
+            putDouble(c.gflops);
+            putString(c.kernelName);
+        }
+
+        // [byte tipo][filas][cols][elementos en el tipo primitivo]
+        public void putTypedMatrix(TypedMatrix M) {
+            putByte((byte) M.type().ordinal());
+            putInt(M.rows());
+            putInt(M.cols());
+            int count = M.rows() * M.cols();
+            long bytes = (long) count * M.type().bytes;
+            if (bytes > MAX_FRAME_BYTES) throw new IllegalArgumentException("Matriz demasiado grande para una trama: " + M.rows() + "x" + M.cols());
+            ensure((int) bytes);
+            switch (M.type()) {
+                case INT8: buf.put(M.bytes()); return;
+                case INT16: buf.asShortBuffer().put(M.shorts()); break;
+                case INT32: buf.asIntBuffer().put(M.ints()); break;
+                case INT64: buf.asLongBuffer().put(M.longs()); break;
+                case FLOAT32: buf.asFloatBuffer().put(M.floats()); break;
+                default: buf.asDoubleBuffer().put(M.doubles()); break;
+            }
+            buf.position(buf.position() + (int) bytes);
+        }
+
+        // null => -1
+        public void putElementType(ElementType t) {
+            putByte((byte) (t == null ? -1 : t.ordinal()));
+        }
+
+        // null => [false]; si no [true][rowStart][last][tiempo][filas]
+        public void putChunk(BlockChunk c) {
+            putBoolean(c != null);
+            if (c == null) return;
+            putInt(c.rowStart);
+            putBoolean(c.last);
+            putLong(c.processingTimeMillis);
+            putMatrix(c.rows);
+        }
+
+        // Escribe la trama completa en el socket
+        public void send() throws IOException {
+            buf.flip();
+            buf.putInt(0, buf.limit() - 4);
+            lastFrameBytes = buf.limit();
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+
+        // --- lectura ---
+
+        /**
+         * Lee la siguiente trama completa en el buffer.
+         * Devuelve false si el otro extremo cerró la conexión limpiamente antes de empezar una trama.
+         */
+        public boolean receive() throws IOException {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    if (header.position() == 0) return false;
+                    throw new EOFException("Conexión cerrada a mitad de una trama");
+                }
+            }
+            int length = header.getInt(0);
+            if (length < 0 || length > MAX_FRAME_BYTES) {
+                throw new IOException("Longitud de trama inválida: " + length + " (máximo " + MAX_FRAME_BYTES + ", -Dbinary.maxFrameBytes)");
+            }
+            reset();
+            ensure(length);
+            buf.limit(length);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0) throw new EOFException("Conexión cerrada a mitad de una trama");
+            }
+            buf.flip();
+            lastFrameBytes = length + 4;
+            return true;
+        }
+
+        // Tamaño en el socket (con la cabecera) de la última trama recibida o enviada
+        public int frameBytes() {
+            return lastFrameBytes;
+        }
+
+        public byte getByte() { return buf.get(); }
+        public int getInt() { return buf.getInt(); }
+        public long getLong() { return buf.getLong(); }
+        public double getDouble() { return buf.getDouble(); }
+        public boolean getBoolean() { return buf.get() != 0; }
+
+        public String getString() {
+            int len = buf.getInt();
+            if (len < 0) return null;
+            byte[] bytes = new byte[len];
+            buf.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public Matrix getMatrix() throws IOException {
+            byte format = buf.get();
+            if (format == FORMAT_ENCODED) {
+                int rows = buf.getInt(), cols = buf.getInt(), base = buf.getInt();
+                int bits = buf.get();
+                boolean deflated = getBoolean();
+                int packedLength = buf.getInt(), length = buf.getInt();
+                if (length < 0 || length > buf.remaining()) throw new IOException("Matriz codificada inválida en la trama");
+                byte[] payload = new byte[length];
+                buf.get(payload);
+                try {
+                    return MatrixCodec.decode(new MatrixCodec.Encoded(rows, cols, base, bits, deflated, packedLength, payload));
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException(ex.getMessage());
+                }
+            }
+            if (format != FORMAT_RAW) throw new IOException("Formato de matriz desconocido: " + format);
+            int rows = buf.getInt(), cols = buf.getInt();
+            if (rows < 0 || cols < 0 || 4L * rows * cols > buf.remaining())
+                throw new IOException("Matriz inválida en la trama: " + rows + "x" + cols);
+            Matrix M = new Matrix(rows, cols);
+            buf.asIntBuffer().get(M.data(), 0, rows * cols);
+            buf.position(buf.position() + 4 * rows * cols);
+            return M;
+        }
+
+        public TypedMatrix getTypedMatrix() throws IOException {
+            ElementType type = getElementType();
+            int rows = buf.getInt(), cols = buf.getInt();
+            if (type == null || rows < 0 || cols < 0 || (long) rows * cols * type.bytes > buf.remaining())
+                throw new IOException("Matriz tipada inválida en la trama: " + type + " " + rows + "x" + cols);
+            TypedMatrix M = TypedMatrix.zeros(type, rows, cols);
+            int count = rows * cols;
+            switch (type) {
+                case INT8: buf.get(M.bytes()); return M;
+                case INT16: buf.asShortBuffer().get(M.shorts()); break;
+                case INT32: buf.asIntBuffer().get(M.ints()); break;
+                case INT64: buf.asLongBuffer().get(M.longs()); break;
+                case FLOAT32: buf.asFloatBuffer().get(M.floats()); break;
+                default: buf.asDoubleBuffer().get(M.doubles()); break;
+            }
+            buf.position(buf.position() + count * type.bytes);
+            return M;
+        }
+
+        public ElementType getElementType() throws IOException {
+            int ordinal = buf.get();
+            if (ordinal < 0) return null;
+            if (ordinal >= ElementType.values().length) throw new IOException("Tipo de elemento desconocido: " + ordinal);
+            return ElementType.values()[ordinal];
+        }
+
+        public BlockChunk getChunk() throws IOException {
+            if (!getBoolean()) return null;
+            int rowStart = getInt();
+            boolean last = getBoolean();
+            long processingTime = getLong();
+            return new BlockChunk(rowStart, getMatrix(), last, processingTime);
+        }
+
+        public ServerCapabilities getCapabilities() {
+            int cores = getInt();
+            long heap = getLong();
+            double gflops = getDouble();
+            return new ServerCapabilities(cores, heap, gflops, getString());
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        // Vacía el buffer; si una trama anterior lo hizo crecer mucho, vuelve al tamaño inicial
+        private void reset() {
+            if (buf.capacity() > RETAINED_BUFFER_BYTES) {
+                buf = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            } else {
+                buf.clear();
+            }
+        }
+
+        // Asegura 'bytes' libres a partir de la posición actual (crece el buffer conservando lo escrito)
+        private void ensure(int bytes) {
+            if (buf.capacity() - buf.position() >= bytes) {
+                if (buf.limit() - buf.position() < bytes) buf.limit(buf.capacity());
+                return;
+            }
+            long needed = (long) buf.position() + bytes;
+            if (needed > MAX_FRAME_BYTES) throw new IllegalArgumentException("Trama demasiado grande: " + needed + " bytes");
+            int capacity = (int) Math.min(MAX_FRAME_BYTES, Math.max(needed, 2L * buf.capacity()));
+            ByteBuffer bigger = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+        }
+    }
+}
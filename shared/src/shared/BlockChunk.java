@@ -0,0 +1,29 @@
+package shared;
+
+import java.io.Serializable;
+
+/**
+ * Trozo de filas ya calculadas de un bloque enviado con submitBlockPrepared (ver MatrixMultiplier.nextChunk).
+ * rowStart es relativo a la primera fila del bloque; los trozos pueden llegar en cualquier orden.
+ * El último trozo del stream lleva last = true y el tiempo de proceso total del bloque.
+ */
+public class BlockChunk implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final int rowStart;
+    public final Matrix rows;
+    public final boolean last;
+    public final long processingTimeMillis;
+
+    public BlockChunk(int rowStart, Matrix rows, boolean last, long processingTimeMillis) {
+        this.rowStart = rowStart;
+        this.rows = rows;
+        this.last = last;
+        this.processingTimeMillis = processingTimeMillis;
+    }
+
+    // Copia las filas del trozo a dest; blockRow es la fila de dest donde empieza el bloque
+    public void copyRowsTo(int[][] dest, int blockRow) {
+        rows.copyRowsTo(dest, blockRow + rowStart);
+    }
+}
@@ -3,16 +3,42 @@ package shared;
 import java.io.Serializable;
 
 /**
- * Wrapper para retornar el resultado de un bloque junto con el tiempo de procesamiento
+ * Wrapper para retornar el resultado de un bloque junto con el tiempo de procesamiento.
+ * Las llamadas con int[][] rellenan result; las llamadas con Matrix rellenan matrix (formato plano).
  */
 public class BlockResult implements Serializable {
-    private static final long serialVersionUID = 1L;
-    
+    private static final long serialVersionUID = 2L;
+
     public final int[][] result;
+    public final Matrix matrix;
     public final long processingTimeMillis;
-    
+
     public BlockResult(int[][] result, long processingTimeMillis) {
         this.result = result;
+        this.matrix = null;
+        this.processingTimeMillis = processingTimeMillis;
+    }
+
+    public BlockResult(Matrix matrix, long processingTimeMillis) {
+        this.result = null;
+        this.matrix = matrix;
         this.processingTimeMillis = processingTimeMillis;
     }
+
+    // Número de filas calculadas, sea cual sea el formato
+    public int rowCount() {
+        if (matrix != null) return matrix.rows();
+        return (result == null) ? 0 : result.length;
+    }
+
+    // Copia las filas del resultado a dest a partir de destRow, sea cual sea el formato
+    public void copyRowsTo(int[][] dest, int destRow) {
+        if (matrix != null) {
+            matrix.copyRowsTo(dest, destRow);
+        } else if (result != null) {
+            for (int i = 0; i < result.length; i++) {
+                System.arraycopy(result[i], 0, dest[destRow + i], 0, result[i].length);
+            }
+        }
+    }
 }
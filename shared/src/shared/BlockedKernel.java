@@ -0,0 +1,130 @@
+package shared;
+
+/**
+ * Kernel de multiplicación por bloques (tiled) en orden i-k-j, compartido por cliente y servidor.
+ *
+ * El orden ingenuo i-j-k recorre B[k][j] por columnas y falla en caché en cada paso interno.
+ * Aquí el bucle interno recorre una fila de B y una fila de C de forma contigua, y el trabajo se
+ * divide en paneles para que los datos reutilizados se queden en caché:
+ * - l1Tile: ancho (en columnas j) de la franja de C/B que se mantiene en L1
+ * - l2Tile: alto (en k) del panel de B (l2Tile x l1Tile) que se mantiene en L2 mientras se recorren las filas
+ *
+ * Los tamaños se pueden ajustar con -Dmatrix.tile.l1=... y -Dmatrix.tile.l2=...
+ */
+public final class BlockedKernel implements MatrixKernel {
+    public static final int DEFAULT_L1_TILE = 256;
+    public static final int DEFAULT_L2_TILE = 128;
+
+    private static final BlockedKernel DEFAULT = new BlockedKernel(
+            Integer.getInteger("matrix.tile.l1", DEFAULT_L1_TILE),
+            Integer.getInteger("matrix.tile.l2", DEFAULT_L2_TILE));
+
+    private final int l1Tile;
+    private final int l2Tile;
+    // Panel de B empaquetado (l2Tile x l1Tile) y acumulador de la versión plana, uno por hilo: los hilos
+    // del pool los reutilizan entre llamadas en vez de reservar 128 KB en cada una
+    private final ThreadLocal<int[][]> panels;
+    private final ThreadLocal<int[]> accs;
+
+    public BlockedKernel(int l1Tile, int l2Tile) {
+        if (l1Tile <= 0 || l2Tile <= 0) throw new IllegalArgumentException("Los tamaños de tile deben ser > 0");
+        this.l1Tile = l1Tile;
+        this.l2Tile = l2Tile;
+        this.panels = ThreadLocal.withInitial(() -> new int[l2Tile][l1Tile]);
+        this.accs = ThreadLocal.withInitial(() -> new int[l1Tile]);
+    }
+
+    // Instancia configurada con las propiedades del sistema (o los valores por defecto)
+    public static BlockedKernel defaults() {
+        return DEFAULT;
+    }
+
+    public int l1Tile() { return l1Tile; }
+    public int l2Tile() { return l2Tile; }
+
+    @Override
+    public String name() { return MatrixKernels.BLOCKED; }
+
+    // Multiplica A x B completo y devuelve una matriz nueva
+    public int[][] multiply(int[][] A, int[][] B) {
+        int[][] C = new int[A.length][B[0].length];
+        multiply(A, B, C, 0, A.length, 0);
+        return C;
+    }
+
+    /**
+     * Acumula en C las filas [rowStart,rowEnd) de A x B.
+     * La fila i de A se escribe en la fila (i - cRowOffset) de C, de modo que C puede ser
+     * la matriz completa (cRowOffset = 0) o solo el segmento calculado (cRowOffset = rowStart).
+     */
+    @Override
+    public void multiply(int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int cRowOffset, Runnable checkpoint) {
+        if (rowStart >= rowEnd) return;
+        int m = B.length, p = B[0].length;
+        for (int jj = 0; jj < p; jj += l1Tile) {
+            int jEnd = Math.min(p, jj + l1Tile);
+            for (int kk = 0; kk < m; kk += l2Tile) {
+                checkpoint.run();
+                int kEnd = Math.min(m, kk + l2Tile);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    int[] Ai = A[i];
+                    int[] Ci = C[i - cRowOffset];
+                    for (int k = kk; k < kEnd; k++) {
+                        int a = Ai[k];
+                        int[] Bk = B[k];
+                        for (int j = jj; j < jEnd; j++) {
+                            Ci[j] += a * Bk[j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Versión plana: multiplica A x B completo y devuelve una Matrix nueva
+    public Matrix multiply(Matrix A, Matrix B) {
+        Matrix C = new Matrix(A.rows(), B.cols());
+        multiply(A, B, C, 0, A.rows(), 0);
+        return C;
+    }
+
+    /**
+     * Versión plana de multiply(int[][],...): mismas reglas para rowStart/rowEnd/cRowOffset.
+     *
+     * Con índices planos (c[cRow + j] y b[bRow + j]) el JIT no puede descartar que c y b se solapen
+     * con desplazamientos distintos y deja de vectorizar el bucle interno. Por eso el panel de B se
+     * empaqueta en filas propias y la franja de C se acumula en un buffer: el bucle interno indexa
+     * ambos arreglos con el mismo j, igual que la versión int[][].
+     */
+    @Override
+    public void multiply(Matrix A, Matrix B, Matrix C, int rowStart, int rowEnd, int cRowOffset, Runnable checkpoint) {
+        if (rowStart >= rowEnd) return;
+        int m = B.rows(), p = B.cols();
+        int[] a = A.data(), b = B.data(), c = C.data();
+        int[][] panel = panels.get();
+        int[] acc = accs.get();
+        for (int jj = 0; jj < p; jj += l1Tile) {
+            int len = Math.min(p, jj + l1Tile) - jj;
+            for (int kk = 0; kk < m; kk += l2Tile) {
+                checkpoint.run();
+                int kLen = Math.min(m, kk + l2Tile) - kk;
+                for (int k = 0; k < kLen; k++) {
+                    System.arraycopy(b, B.index(kk + k, jj), panel[k], 0, len);
+                }
+                for (int i = rowStart; i < rowEnd; i++) {
+                    int aRow = A.index(i, kk);
+                    int cIdx = C.index(i - cRowOffset, jj);
+                    System.arraycopy(c, cIdx, acc, 0, len);
+                    for (int k = 0; k < kLen; k++) {
+                        int av = a[aRow + k];
+                        int[] Pk = panel[k];
+                        for (int j = 0; j < len; j++) {
+                            acc[j] += av * Pk[j];
+                        }
+                    }
+                    System.arraycopy(acc, 0, c, cIdx, len);
+                }
+            }
+        }
+    }
+}
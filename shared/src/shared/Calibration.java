@@ -0,0 +1,46 @@
+package shared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Micro-benchmark corto (unas décimas de segundo) para estimar la capacidad de un endpoint.
+ * Multiplica matrices de SIZE x SIZE repartiendo franjas de filas entre todos los hilos del pool
+ * y se queda con la mejor de varias repeticiones (las primeras sirven de calentamiento del JIT).
+ */
+public final class Calibration {
+    private static final int SIZE = 256;
+    private static final int REPEATS = 6;
+
+    private Calibration() {}
+
+    public static ServerCapabilities measure(ForkJoinPool pool, MatrixKernel kernel) {
+        Random rnd = new Random(7);
+        Matrix A = new Matrix(SIZE, SIZE), B = new Matrix(SIZE, SIZE);
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            A.data()[i] = rnd.nextInt(10);
+            B.data()[i] = rnd.nextInt(10);
+        }
+        int strips = Math.max(1, pool.getParallelism());
+        int rowsPerStrip = (SIZE + strips - 1) / strips;
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < REPEATS; r++) {
+            Matrix C = new Matrix(SIZE, SIZE);
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int s = 0; s < SIZE; s += rowsPerStrip) {
+                final int from = s, to = Math.min(SIZE, s + rowsPerStrip);
+                tasks.add(ForkJoinTask.adapt(() -> kernel.multiply(A, B, C, from, to, 0)));
+            }
+            long t0 = System.nanoTime();
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double gflops = 2.0 * SIZE * SIZE * SIZE / Math.max(1, best);
+        return new ServerCapabilities(Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory(), gflops, kernel.name());
+    }
+}
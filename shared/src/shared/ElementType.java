@@ -0,0 +1,27 @@
+package shared;
+
+/**
+ * Tipo de elemento de una TypedMatrix.
+ * INT32, INT64, FLOAT32 y FLOAT64 pueden usarse también como tipo del resultado (acumulador).
+ */
+public enum ElementType {
+    INT8(1, false),
+    INT16(2, false),
+    INT32(4, false),
+    INT64(8, false),
+    FLOAT32(4, true),
+    FLOAT64(8, true);
+
+    public final int bytes;
+    public final boolean floatingPoint;
+
+    ElementType(int bytes, boolean floatingPoint) {
+        this.bytes = bytes;
+        this.floatingPoint = floatingPoint;
+    }
+
+    // true si el tipo puede usarse como acumulador del resultado
+    public boolean isAccumulator() {
+        return this == INT32 || this == INT64 || this == FLOAT32 || this == FLOAT64;
+    }
+}
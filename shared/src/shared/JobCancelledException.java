@@ -0,0 +1,18 @@
+package shared;
+
+import java.rmi.RemoteException;
+
+/**
+ * El trabajo jobId se canceló (MatrixMultiplier.cancel) antes o durante el cálculo.
+ * El servidor deja de calcular en el siguiente panel de B del kernel y descarta el resultado parcial.
+ */
+public class JobCancelledException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public final long jobId;
+
+    public JobCancelledException(long jobId) {
+        super("Trabajo cancelado: " + jobId);
+        this.jobId = jobId;
+    }
+}
@@ -0,0 +1,134 @@
+package shared;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * Matriz de enteros en un único int[] en orden por filas (row-major).
+ *
+ * A diferencia de int[][], se serializa como un solo arreglo (sin una cabecera y un objeto por fila)
+ * y permite a los kernels recorrer la memoria de forma contigua.
+ * El elemento (i,j) está en data[offset + i*stride + j]. Las vistas (rowView/view) comparten el
+ * arreglo con la matriz original; al serializarse solo viajan sus propios elementos.
+ */
+public final class Matrix implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] data;
+    private final int offset;
+    private final int rows;
+    private final int cols;
+    private final int stride;
+
+    public Matrix(int rows, int cols) {
+        this(new int[checkedSize(rows, cols)], 0, rows, cols, cols);
+    }
+
+    public Matrix(int[] data, int rows, int cols) {
+        this(data, 0, rows, cols, cols);
+    }
+
+    public Matrix(int[] data, int offset, int rows, int cols, int stride) {
+        if (rows < 0 || cols < 0 || stride < cols || offset < 0)
+            throw new IllegalArgumentException("Dimensiones inválidas: " + rows + "x" + cols + " stride=" + stride);
+        if (rows > 0 && cols > 0 && (long) offset + (long) (rows - 1) * stride + cols > data.length)
+            throw new IllegalArgumentException("El arreglo es demasiado pequeño para " + rows + "x" + cols);
+        this.data = data;
+        this.offset = offset;
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = stride;
+    }
+
+    private static int checkedSize(int rows, int cols) {
+        long size = (long) rows * cols;
+        if (rows < 0 || cols < 0 || size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Dimensiones inválidas: " + rows + "x" + cols);
+        return (int) size;
+    }
+
+    // Copia una matriz int[][] (rectangular) a formato plano
+    public static Matrix of(int[][] M) {
+        return ofRows(M, 0, M.length);
+    }
+
+    // Copia solo las filas [rowStart,rowEnd) de M a una matriz plana nueva
+    public static Matrix ofRows(int[][] M, int rowStart, int rowEnd) {
+        int rows = rowEnd - rowStart;
+        int cols = (M.length == 0) ? 0 : M[0].length;
+        Matrix R = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(M[rowStart + i], 0, R.data, i * cols, cols);
+        }
+        return R;
+    }
+
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+    public int stride() { return stride; }
+    public int offset() { return offset; }
+
+    // Arreglo subyacente (compartido, no se copia)
+    public int[] data() { return data; }
+
+    public int index(int i, int j) { return offset + i * stride + j; }
+    public int get(int i, int j) { return data[offset + i * stride + j]; }
+    public void set(int i, int j, int v) { data[offset + i * stride + j] = v; }
+
+    // Vista de las filas [rowStart,rowEnd), sin copiar
+    public Matrix rowView(int rowStart, int rowEnd) {
+        return view(rowStart, 0, rowEnd - rowStart, cols);
+    }
+
+    // Vista de la submatriz que empieza en (row,col) de tamaño rows x cols, sin copiar
+    public Matrix view(int row, int col, int rows, int cols) {
+        if (row < 0 || col < 0 || row + rows > this.rows || col + cols > this.cols)
+            throw new IndexOutOfBoundsException("Vista fuera de rango: (" + row + "," + col + ") " + rows + "x" + cols);
+        return new Matrix(data, offset + row * stride + col, rows, cols, stride);
+    }
+
+    // true si los elementos ocupan todo el arreglo, sin huecos ni desplazamiento
+    public boolean isCompact() {
+        return offset == 0 && stride == cols && data.length == rows * cols;
+    }
+
+    // Copia compacta (o la misma matriz si ya lo es)
+    public Matrix compact() {
+        if (isCompact()) return this;
+        Matrix R = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, offset + i * stride, R.data, i * cols, cols);
+        }
+        return R;
+    }
+
+    public int[][] toArray() {
+        int[][] M = new int[rows][cols];
+        copyRowsTo(M, 0);
+        return M;
+    }
+
+    // Copia todas las filas a dest a partir de la fila destRow
+    public void copyRowsTo(int[][] dest, int destRow) {
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, offset + i * stride, dest[destRow + i], 0, cols);
+        }
+    }
+
+    // Una vista no debe arrastrar el arreglo completo por la red: se envía su copia compacta,
+    // o su versión codificada (MatrixCodec, -Dmatrix.codec) si ocupa bastante menos
+    private Object writeReplace() {
+        MatrixCodec.Encoded encoded = MatrixCodec.encode(this, MatrixCodec.DEFAULT_MODE);
+        return (encoded != null) ? encoded : compact();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (data == null || rows < 0 || cols < 0 || stride < cols || offset < 0
+                || (rows > 0 && cols > 0 && (long) offset + (long) (rows - 1) * stride + cols > data.length)) {
+            throw new InvalidObjectException("Matrix corrupta: " + rows + "x" + cols);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package shared;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codificación compacta de Matrix para enviarla por la red (RMI y transporte binario).
+ *
+ * 1) Empaquetado estrecho: se resta el mínimo (base) y cada elemento se guarda con los bits justos
+ *    para (max - min). Matrices con valores 0..9 ocupan 4 bits por elemento en vez de 32.
+ * 2) Deflate (LZ77 + Huffman, BEST_SPEED) sobre los bytes empaquetados, solo si una muestra
+ *    comprime al menos a DEFLATE_MAX_RATIO de su tamaño.
+ * Si el resultado no baja de ENCODED_MAX_RATIO del tamaño original (o la matriz es pequeña) se envía
+ * la matriz sin codificar.
+ *
+ * Modo con -Dmatrix.codec=none|pack|auto (por defecto auto = empaquetado + deflate si compensa).
+ * Lo decide quien envía; quien recibe decodifica cualquier formato.
+ */
+public final class MatrixCodec {
+    public enum Mode { NONE, PACK, AUTO }
+
+    public static final Mode DEFAULT_MODE = Mode.valueOf(System.getProperty("matrix.codec", "auto").toUpperCase());
+
+    // Por debajo de este número de elementos no merece la pena codificar
+    private static final int MIN_ELEMENTS = 1024;
+    private static final double ENCODED_MAX_RATIO = 0.9;
+    private static final double DEFLATE_MAX_RATIO = 0.8;
+    private static final int DEFLATE_SAMPLE_BYTES = 64 * 1024;
+    // Deflate no comprime más de ~1032:1: un payload más pequeño que packedLength / esto es basura
+    private static final int DEFLATE_MAX_EXPANSION = 1032;
+
+    private MatrixCodec() {}
+
+    /** Matriz codificada; al deserializarse (readResolve) se convierte de nuevo en Matrix. */
+    public static final class Encoded implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final int rows, cols;
+        public final int base;
+        public final int bits;
+        public final boolean deflated;
+        // Tamaño de los bytes empaquetados antes de deflate
+        public final int packedLength;
+        public final byte[] payload;
+
+        public Encoded(int rows, int cols, int base, int bits, boolean deflated, int packedLength, byte[] payload) {
+            this.rows = rows; this.cols = cols; this.base = base; this.bits = bits;
+            this.deflated = deflated; this.packedLength = packedLength; this.payload = payload;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            try {
+                return decode(this);
+            } catch (IllegalArgumentException ex) {
+                throw new java.io.InvalidObjectException(ex.getMessage());
+            }
+        }
+    }
+
+    /** Codifica M con el modo dado; devuelve null si no compensa (se debe enviar M tal cual). */
+    public static Encoded encode(Matrix M, Mode mode) {
+        int rows = M.rows(), cols = M.cols();
+        long count = (long) rows * cols;
+        if (mode == Mode.NONE || count < MIN_ELEMENTS) return null;
+
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        int[] d = M.data();
+        for (int i = 0; i < rows; i++) {
+            for (int j = M.index(i, 0), end = j + cols; j < end; j++) {
+                int v = d[j];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+        }
+        long range = (long) max - min;
+        int bits = 64 - Long.numberOfLeadingZeros(range);
+        long packedLong = (count * bits + 7) / 8;
+        if (packedLong > Integer.MAX_VALUE - 16) return null;
+        int packedLength = (int) packedLong;
+        byte[] packed = pack(M, min, bits, packedLength);
+
+        if (mode == Mode.AUTO && packedLength > 0) {
+            byte[] deflated = deflateIfWorthIt(packed);
+            if (deflated != null) {
+                return checkRatio(new Encoded(rows, cols, min, bits, true, packedLength, deflated), count);
+            }
+        }
+        return checkRatio(new Encoded(rows, cols, min, bits, false, packedLength, packed), count);
+    }
+
+    /**
+     * Decodifica e. Antes de reservar nada se comprueba que los tamaños sean coherentes y plausibles: la matriz
+     * decodificada no puede pasar del límite de trama (BinaryProtocol.MAX_FRAME_BYTES, -Dbinary.maxFrameBytes),
+     * igual por RMI que por el transporte binario, y un payload deflate no puede prometer más de lo que deflate
+     * llega a comprimir. Así unos pocos bytes no obligan a reservar gigas.
+     */
+    public static Matrix decode(Encoded e) {
+        if (e.rows < 0 || e.cols < 0 || e.bits < 0 || e.bits > 32 || e.payload == null)
+            throw new IllegalArgumentException("Matriz codificada inválida: " + e.rows + "x" + e.cols + " bits=" + e.bits);
+        long count = (long) e.rows * e.cols;
+        if (4L * count > BinaryProtocol.MAX_FRAME_BYTES)
+            throw new IllegalArgumentException("Matriz codificada demasiado grande: " + e.rows + "x" + e.cols
+                    + " (máximo " + BinaryProtocol.MAX_FRAME_BYTES + " bytes, -Dbinary.maxFrameBytes)");
+        if ((count * e.bits + 7) / 8 != e.packedLength)
+            throw new IllegalArgumentException("Longitud empaquetada inconsistente: " + e.packedLength);
+        if (e.deflated && (long) e.payload.length * DEFLATE_MAX_EXPANSION < e.packedLength)
+            throw new IllegalArgumentException("Datos comprimidos imposibles: " + e.payload.length + " bytes para " + e.packedLength);
+        byte[] packed = e.deflated ? inflate(e.payload, e.packedLength) : e.payload;
+        if (packed.length < e.packedLength) throw new IllegalArgumentException("Datos empaquetados truncados");
+        Matrix M = new Matrix(e.rows, e.cols);
+        unpack(packed, e.base, e.bits, M.data());
+        return M;
+    }
+
+    private static Encoded checkRatio(Encoded e, long count) {
+        return (e.payload.length + 32 <= ENCODED_MAX_RATIO * 4.0 * count) ? e : null;
+    }
+
+    // Empaqueta (v - base) con 'bits' bits por elemento, en orden por filas y de bit menos significativo a más
+    private static byte[] pack(Matrix M, int base, int bits, int packedLength) {
+        byte[] out = new byte[packedLength];
+        if (bits == 0) return out;
+        int[] d = M.data();
+        int cols = M.cols();
+        long mask = (bits == 64) ? -1L : (1L << bits) - 1;
+        long acc = 0;
+        int accBits = 0, pos = 0;
+        for (int i = 0; i < M.rows(); i++) {
+            for (int j = M.index(i, 0), end = j + cols; j < end; j++) {
+                acc |= (((long) d[j] - base) & mask) << accBits;
+                accBits += bits;
+                while (accBits >= 8) {
+                    out[pos++] = (byte) acc;
+                    acc >>>= 8;
+                    accBits -= 8;
+                }
+            }
+        }
+        if (accBits > 0) out[pos] = (byte) acc;
+        return out;
+    }
+
+    private static void unpack(byte[] in, int base, int bits, int[] out) {
+        if (bits == 0) {
+            Arrays.fill(out, base);
+            return;
+        }
+        long mask = (1L << bits) - 1;
+        long acc = 0;
+        int accBits = 0, pos = 0;
+        for (int k = 0; k < out.length; k++) {
+            while (accBits < bits) {
+                acc |= (in[pos++] & 0xFFL) << accBits;
+                accBits += 8;
+            }
+            out[k] = (int) ((acc & mask) + base);
+            acc >>>= bits;
+            accBits -= bits;
+        }
+    }
+
+    // Deflate solo si una muestra del principio comprime lo suficiente; null si no compensa
+    private static byte[] deflateIfWorthIt(byte[] packed) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            int sample = Math.min(packed.length, DEFLATE_SAMPLE_BYTES);
+            if (sample < packed.length) {
+                byte[] probe = deflate(deflater, packed, sample);
+                if (probe == null || probe.length > DEFLATE_MAX_RATIO * sample) return null;
+                deflater.reset();
+            }
+            byte[] out = deflate(deflater, packed, packed.length);
+            return (out != null && out.length <= DEFLATE_MAX_RATIO * packed.length) ? out : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Comprime los primeros 'length' bytes; null si la salida crece por encima de la entrada
+    private static byte[] deflate(Deflater deflater, byte[] in, int length) {
+        deflater.setInput(in, 0, length);
+        deflater.finish();
+        byte[] out = new byte[Math.max(64, length)];
+        int written = 0;
+        while (!deflater.finished()) {
+            if (written == out.length) return null;
+            written += deflater.deflate(out, written, out.length - written);
+        }
+        return Arrays.copyOf(out, written);
+    }
+
+    private static byte[] inflate(byte[] in, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(in);
+            byte[] out = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(out, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                read += n;
+            }
+            if (read != length) throw new IllegalArgumentException("Datos comprimidos truncados");
+            return out;
+        } catch (DataFormatException ex) {
+            throw new IllegalArgumentException("Datos comprimidos corruptos: " + ex.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+}
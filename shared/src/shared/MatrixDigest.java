@@ -0,0 +1,42 @@
+package shared;
+
+/**
+ * Huella rápida (no criptográfica) de 128 bits del contenido de una Matrix.
+ *
+ * Se usa como clave de la caché de B en el servidor: el cliente calcula la huella, pregunta
+ * hasB(huella) y solo sube B si el servidor no la tiene. Dos líneas de hash independientes
+ * (multiplicación-xor y rotación) más las dimensiones hacen las colisiones accidentales
+ * despreciables para este uso; no protege frente a colisiones buscadas a propósito.
+ */
+public final class MatrixDigest {
+    private static final long P1 = 0x9E3779B97F4A7C15L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+
+    private MatrixDigest() {}
+
+    public static String of(Matrix M) {
+        long h1 = P1 ^ M.rows();
+        long h2 = P2 ^ ((long) M.cols() << 32);
+        int[] data = M.data();
+        for (int i = 0; i < M.rows(); i++) {
+            int base = M.index(i, 0);
+            for (int j = 0; j < M.cols(); j++) {
+                long v = data[base + j];
+                h1 = (h1 ^ v) * P1;
+                h2 = Long.rotateLeft(h2 + v * P3, 31) * P2;
+            }
+        }
+        return String.format("%016x%016x", mix(h1 ^ h2 >>> 17), mix(h2 ^ h1 >>> 13));
+    }
+
+    // Finalizador de MurmurHash3 (fmix64)
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB2FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,194 @@
+package shared;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Matriz de int en disco, accedida con FileChannel.map (sin cargarla entera en el heap).
+ *
+ * Formato (little-endian):
+ *   cabecera de HEADER_BYTES: magic "MTXF" (int), versión (int), layout (int, LAYOUT_ROW_MAJOR),
+ *   filas (int), columnas (int) y relleno a 0 hasta HEADER_BYTES;
+ *   después filas x columnas int32 por filas (row-major).
+ *
+ * Un MappedByteBuffer no pasa de 2 GB, así que el fichero se mapea en tramos de filas completas
+ * (SEGMENT_BYTES como mucho cada uno). Las lecturas y escrituras usan índices absolutos: varios hilos
+ * pueden usar la misma MatrixFile a la vez siempre que no escriban las mismas filas.
+ */
+public final class MatrixFile implements Closeable {
+    public static final int MAGIC = 0x4658544D; // "MTXF" en little-endian
+    public static final int VERSION = 1;
+    public static final int LAYOUT_ROW_MAJOR = 0;
+    public static final int HEADER_BYTES = 64;
+
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int rows, cols;
+    private final int rowsPerSegment;
+    private final IntBuffer[] segments;
+    // Mapeos de los tramos: solo MappedByteBuffer.force garantiza volcar lo escrito a través del mapeo
+    private final MappedByteBuffer[] mappings;
+
+    private MatrixFile(Path path, FileChannel channel, boolean writable, int rows, int cols) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.writable = writable;
+        this.rows = rows;
+        this.cols = cols;
+        long rowBytes = Math.max(1L, (long) cols * Integer.BYTES);
+        if (rowBytes > Integer.MAX_VALUE) throw new IOException("Fila demasiado larga para mapear: " + cols + " columnas");
+        this.rowsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE, SEGMENT_BYTES / rowBytes));
+        int count = (rows == 0) ? 0 : (rows + rowsPerSegment - 1) / rowsPerSegment;
+        this.segments = new IntBuffer[count];
+        this.mappings = new MappedByteBuffer[count];
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int s = 0; s < count; s++) {
+            int r0 = s * rowsPerSegment, r1 = Math.min(rows, r0 + rowsPerSegment);
+            MappedByteBuffer mapped = channel.map(mode, HEADER_BYTES + r0 * rowBytes, (r1 - r0) * rowBytes);
+            mappings[s] = mapped;
+            segments[s] = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /** Crea (o sobrescribe) un fichero de rows x cols ceros y lo abre para lectura y escritura. */
+    public static MatrixFile create(Path path, int rows, int cols) throws IOException {
+        if (rows < 0 || cols < 0) throw new IllegalArgumentException("Dimensiones no válidas: " + rows + "x" + cols);
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(LAYOUT_ROW_MAJOR).putInt(rows).putInt(cols);
+            header.clear();
+            while (header.hasRemaining()) ch.write(header, header.position());
+            // Reserva el tamaño completo (disperso en la mayoría de sistemas de ficheros)
+            long size = HEADER_BYTES + (long) rows * cols * Integer.BYTES;
+            if (size > HEADER_BYTES) ch.write(ByteBuffer.allocate(1), size - 1);
+            return new MatrixFile(path, ch, true, rows, cols);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /** Abre un fichero existente; writable = false lo mapea solo para lectura. */
+    public static MatrixFile open(Path path, boolean writable) throws IOException {
+        FileChannel ch = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (ch.read(header, header.position()) < 0) break;
+            }
+            if (header.hasRemaining()) throw new IOException("Fichero de matriz truncado: " + path);
+            header.flip();
+            int magic = header.getInt(), version = header.getInt(), layout = header.getInt();
+            int rows = header.getInt(), cols = header.getInt();
+            if (magic != MAGIC) throw new IOException("No es un fichero de matriz: " + path);
+            if (version != VERSION) throw new IOException("Versión de fichero de matriz no soportada: " + version);
+            if (layout != LAYOUT_ROW_MAJOR) throw new IOException("Layout de fichero de matriz no soportado: " + layout);
+            if (rows < 0 || cols < 0) throw new IOException("Dimensiones no válidas en " + path);
+            long expected = HEADER_BYTES + (long) rows * cols * Integer.BYTES;
+            if (ch.size() < expected) throw new IOException("Fichero de matriz truncado: " + path);
+            return new MatrixFile(path, ch, writable, rows, cols);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /** Escribe M completa en un fichero nuevo. */
+    public static void write(Path path, Matrix M) throws IOException {
+        try (MatrixFile f = create(path, M.rows(), M.cols())) {
+            f.writeBlock(0, 0, M);
+        }
+    }
+
+    /** Lee el fichero completo al heap (solo para matrices que caben en memoria). */
+    public static Matrix read(Path path) throws IOException {
+        try (MatrixFile f = open(path, false)) {
+            return f.readRows(0, f.rows);
+        }
+    }
+
+    public Path path() { return path; }
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+
+    /** Copia las filas [rowStart, rowEnd) a una Matrix nueva del heap. */
+    public Matrix readRows(int rowStart, int rowEnd) {
+        return readBlock(rowStart, 0, rowEnd - rowStart, cols);
+    }
+
+    /** Copia el bloque de h x w que empieza en (row, col) a una Matrix nueva del heap. */
+    public Matrix readBlock(int row, int col, int h, int w) {
+        Matrix M = new Matrix(h, w);
+        readBlock(row, col, M);
+        return M;
+    }
+
+    /** Rellena dest (dest.rows() x dest.cols()) con el bloque que empieza en (row, col). */
+    public void readBlock(int row, int col, Matrix dest) {
+        checkBlock(row, col, dest.rows(), dest.cols());
+        int[] data = dest.data();
+        for (int i = 0; i < dest.rows(); i++) {
+            int r = row + i;
+            segment(r).get(offsetInSegment(r) + col, data, dest.index(i, 0), dest.cols());
+        }
+    }
+
+    /** Escribe M en el bloque que empieza en (row, col). */
+    public void writeBlock(int row, int col, Matrix M) {
+        if (!writable) throw new IllegalStateException("Fichero de matriz abierto solo para lectura: " + path);
+        checkBlock(row, col, M.rows(), M.cols());
+        int[] data = M.data();
+        for (int i = 0; i < M.rows(); i++) {
+            int r = row + i;
+            segment(r).put(offsetInSegment(r) + col, data, M.index(i, 0), M.cols());
+        }
+    }
+
+    // Vuelca a disco las páginas modificadas (el contenido ya es visible para otros lectores del fichero).
+    // FileChannel.force no garantiza incluir lo escrito a través de un mapeo: se fuerza cada tramo y
+    // después el canal (la cabecera se escribe por el canal).
+    public void flush() throws IOException {
+        if (!writable) return;
+        for (MappedByteBuffer m : mappings) m.force();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            // El mapeo se libera cuando el GC recoge los buffers; el canal se puede cerrar ya
+            channel.close();
+        }
+    }
+
+    private IntBuffer segment(int row) {
+        return segments[row / rowsPerSegment];
+    }
+
+    private int offsetInSegment(int row) {
+        return (row % rowsPerSegment) * cols;
+    }
+
+    private void checkBlock(int row, int col, int h, int w) {
+        if (row < 0 || col < 0 || h < 0 || w < 0 || row + h > rows || col + w > cols) {
+            throw new IndexOutOfBoundsException(String.format("Bloque %dx%d en (%d,%d) fuera de %dx%d",
+                    h, w, row, col, rows, cols));
+        }
+    }
+}
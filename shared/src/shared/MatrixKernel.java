@@ -0,0 +1,33 @@
+package shared;
+
+/**
+ * Kernel de multiplicación de filas. Implementaciones:
+ * - BlockedKernel: escalar, i-k-j por bloques (siempre disponible)
+ * - VectorKernel: SIMD con jdk.incubator.vector (opcional, ver MatrixKernels.select)
+ *
+ * Todos los métodos acumulan en C las filas [rowStart,rowEnd) de A x B; la fila i de A se escribe
+ * en la fila (i - cRowOffset) de C.
+ *
+ * Cada panel de B se reutiliza en todas las filas del rango: conviene llamar una vez por rango completo
+ * y no por franjas pequeñas, que vuelven a leer (y empaquetar) todo B en cada franja. Para cancelar a
+ * mitad, las variantes con 'checkpoint' lo llaman antes de cada panel; puede lanzar una excepción no
+ * comprobada para abandonar el cálculo.
+ */
+public interface MatrixKernel {
+    Runnable NO_CHECKPOINT = () -> { };
+
+    void multiply(int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int cRowOffset, Runnable checkpoint);
+
+    void multiply(Matrix A, Matrix B, Matrix C, int rowStart, int rowEnd, int cRowOffset, Runnable checkpoint);
+
+    default void multiply(int[][] A, int[][] B, int[][] C, int rowStart, int rowEnd, int cRowOffset) {
+        multiply(A, B, C, rowStart, rowEnd, cRowOffset, NO_CHECKPOINT);
+    }
+
+    default void multiply(Matrix A, Matrix B, Matrix C, int rowStart, int rowEnd, int cRowOffset) {
+        multiply(A, B, C, rowStart, rowEnd, cRowOffset, NO_CHECKPOINT);
+    }
+
+    // Nombre corto para logs ("blocked", "vector", ...)
+    String name();
+}
@@ -0,0 +1,47 @@
+package shared;
+
+/**
+ * Selección del kernel por nombre:
+ * - "blocked" (por defecto): BlockedKernel escalar
+ * - "vector": VectorKernel (jdk.incubator.vector). Si el módulo no está disponible
+ *   (falta --add-modules jdk.incubator.vector o la clase no se compiló) se usa BlockedKernel.
+ */
+public final class MatrixKernels {
+    public static final String BLOCKED = "blocked";
+    public static final String VECTOR = "vector";
+
+    private static final String VECTOR_CLASS = "shared.VectorKernel";
+
+    private MatrixKernels() {}
+
+    public static MatrixKernel select(String name) {
+        if (name == null || name.isEmpty() || BLOCKED.equalsIgnoreCase(name)) {
+            return BlockedKernel.defaults();
+        }
+        if (VECTOR.equalsIgnoreCase(name)) {
+            MatrixKernel vector = VectorHolder.KERNEL;
+            return (vector != null) ? vector : BlockedKernel.defaults();
+        }
+        throw new IllegalArgumentException("Kernel desconocido: " + name + " (use 'blocked' o 'vector')");
+    }
+
+    // true si el kernel SIMD se puede usar en esta JVM
+    public static boolean vectorAvailable() {
+        return VectorHolder.KERNEL != null;
+    }
+
+    // El kernel SIMD se carga (y se avisa si falta) una sola vez, la primera vez que se pide;
+    // VectorKernel no guarda estado mutable, así que una instancia sirve para todos los hilos
+    private static final class VectorHolder {
+        static final MatrixKernel KERNEL = loadVector();
+    }
+
+    private static MatrixKernel loadVector() {
+        try {
+            return (MatrixKernel) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("[AVISO] Kernel SIMD no disponible (" + e + "); se usa el kernel escalar por bloques.");
+            return null;
+        }
+    }
+}
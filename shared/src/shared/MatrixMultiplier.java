@@ -16,10 +16,16 @@ public interface MatrixMultiplier extends Remote {
             throws RemoteException;
 
     // Porción que el servidor procesa internamente de forma concurrente (usa Fork/Join con threadCount)
-    // A y B son matrices completas; devuelve filas [rowStart,rowEnd)
+    // A y B son matrices completas; devuelve filas [rowStart,rowEnd).
+    // Se mantiene por compatibilidad: A viaja entera; mejor la variante con A_rows de abajo.
     int[][] multiplyConcurrentSegment(int[][] A, int[][] B, int rowStart, int rowEnd, int threadCount)
             throws RemoteException;
 
+    // Segmento sin desperdicio: A_rows son solo las filas [rowOffset, rowOffset + A_rows.rows()) de A y
+    // el resultado tiene exactamente esas filas (A_rows.rows() x B.cols()).
+    Matrix multiplyConcurrentSegment(Matrix A_rows, Matrix B, int rowOffset, int threadCount)
+            throws RemoteException;
+
     // NUEVO: Multiplica un bloque A_block (filas contiguas) contra B.
     // blockIndex: número de bloque global (para logs)
     // rowOffset indica la fila global de A correspondiente a A_block[0].
@@ -30,14 +36,117 @@ public interface MatrixMultiplier extends Remote {
 
     // PREPARE / cached B API: allow the client to upload B once to the server
     // so subsequent block calls don't need to resend B every time.
-    void prepareB(int[][] B) throws RemoteException;
+    // Returns a handle that identifies this B (its MatrixDigest), so concurrent
+    // clients never overwrite each other's B and identical Bs are stored once.
+    // The server may expire handles (TTL) or evict them under memory pressure (LRU).
+    String prepareB(int[][] B) throws RemoteException;
+
+    // Hint that this client no longer needs the B under the given handle (optional; unknown handles are ignored).
+    // Handles are content digests shared by every client, so this does not delete B: another client may be
+    // using the same B. The entry stays valid and becomes the first candidate for LRU eviction; TTL still applies.
+    void clearPreparedB(String bHandle) throws RemoteException;
 
-    // Clear any prepared B stored on the server (optional)
-    void clearPreparedB() throws RemoteException;
+    // Content-addressed B cache: the handle returned by prepareB is MatrixDigest.of(B).
+    // hasB(digest) tells the client whether it can skip the upload and use the digest as handle.
+    boolean hasB(String digest) throws RemoteException;
 
     // Multiply using a previously prepared B. A_block are the contiguous rows
-    // corresponding to global rowOffset. Server must have B prepared first.
+    // corresponding to global rowOffset. Throws UnknownBHandleException if the
+    // handle is not (or no longer) on the server.
     // blockIndex: número de bloque global (para logs)
-    BlockResult multiplyBlockPrepared(int[][] A_block, int blockIndex, int rowOffset, int threadCount)
+    BlockResult multiplyBlockPrepared(String bHandle, int[][] A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException;
+
+    // --- Variantes con Matrix (int[] plano row-major) ---
+    // Misma semántica que las versiones int[][], pero cada matriz viaja como un único arreglo.
+    // Los BlockResult devueltos traen el resultado en BlockResult.matrix.
+
+    Matrix multiply(Matrix A, Matrix B) throws RemoteException;
+
+    Matrix multiplyConcurrent(Matrix A, Matrix B, int threadCount) throws RemoteException;
+
+    BlockResult multiplyBlock(Matrix A_block, Matrix B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException;
+
+    String prepareB(Matrix B) throws RemoteException;
+
+    BlockResult multiplyBlockPrepared(String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
             throws RemoteException;
+
+    // Strassen-Winograd recursivo (Fork/Join en el pool compartido del servidor) para matrices grandes.
+    // Por debajo de 'cutoff' usa el kernel clásico por bloques; cutoff <= 0 => valor por defecto del servidor.
+    int[][] multiplyStrassen(int[][] A, int[][] B, int cutoff) throws RemoteException;
+
+    Matrix multiplyStrassen(Matrix A, Matrix B, int cutoff) throws RemoteException;
+
+    // Cores, heap máximo y GFLOP/s calibrados al arrancar el servidor (para repartir filas según capacidad)
+    ServerCapabilities getCapabilities() throws RemoteException;
+
+    /**
+     * Versión en streaming de multiplyBlockPrepared: el servidor empieza a calcular y devuelve un id de stream.
+     * Las filas terminadas se recogen con nextChunk mientras el resto se sigue calculando.
+     */
+    long submitBlockPrepared(String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException;
+
+    // Siguiente trozo terminado del stream, o null si no hay ninguno en timeoutMillis. Tras el trozo con last = true el stream se libera.
+    BlockChunk nextChunk(long streamId, long timeoutMillis) throws RemoteException;
+
+    /**
+     * Multiplicación con tipos de elemento (ver TypedMatrix y TypedKernels): INT8/INT16/INT32/INT64 y FLOAT32/FLOAT64.
+     * resultType es el acumulador (INT32, INT64, FLOAT32 o FLOAT64); null => TypedKernels.defaultResultType, que no
+     * desborda para INT8/INT16 pero con INT32/INT64 sí puede (m * max|a| * max|b| > Long.MAX_VALUE; resultado módulo 2^64).
+     */
+    TypedMatrix multiplyTyped(TypedMatrix A, TypedMatrix B, ElementType resultType) throws RemoteException;
+
+    // --- Trabajos cancelables ---
+    // jobId lo elige el cliente (aleatorio de 64 bits, el mismo para todas las llamadas de un trabajo);
+    // NO_JOB => no cancelable (es lo que usan las variantes sin jobId).
+    // Si el trabajo se cancela, el cálculo se detiene en el siguiente panel de B del kernel y la llamada
+    // lanza JobCancelledException (en streaming, el siguiente nextChunk).
+
+    long NO_JOB = 0L;
+
+    Matrix multiplyConcurrent(long jobId, Matrix A, Matrix B, int threadCount) throws RemoteException;
+
+    BlockResult multiplyBlock(long jobId, Matrix A_block, Matrix B, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException;
+
+    BlockResult multiplyBlockPrepared(long jobId, String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException;
+
+    long submitBlockPrepared(long jobId, String bHandle, Matrix A_block, int blockIndex, int rowOffset, int threadCount)
+            throws RemoteException;
+
+    /**
+     * Cancela el trabajo jobId: las llamadas en curso se detienen y las que lleguen después con ese jobId
+     * se rechazan. Devuelve true si había cálculo en curso de ese trabajo.
+     */
+    boolean cancel(long jobId) throws RemoteException;
+
+    /**
+     * Prioridad de las llamadas del trabajo jobId en la cola del servidor (mayor = antes; por defecto 0).
+     * A igual prioridad el servidor reparte los turnos entre clientes de forma equitativa.
+     * Con la cola llena las llamadas de cálculo lanzan ServerBusyException.
+     */
+    void setJobPriority(long jobId, int priority) throws RemoteException;
+
+    // --- Operandos en el disco del servidor (ficheros shared.MatrixFile bajo -Dserver.dataDir) ---
+    // Las rutas son relativas a server.dataDir; el servidor rechaza las que salen de él.
+
+    // Carga B desde un fichero del servidor en la caché de B preparadas; devuelve su handle (como prepareB)
+    String prepareBFromFile(String bPath) throws RemoteException;
+
+    // Filas [rowStart,rowEnd) de A (fichero del servidor) x B preparada: solo el resultado viaja al cliente
+    BlockResult multiplyBlockFromFile(long jobId, String aPath, int rowStart, int rowEnd, String bHandle, int threadCount)
+            throws RemoteException;
+
+    // Como multiplyBlockFromFile, pero escribe esas filas de C en el fichero cPath del servidor (lo crea con
+    // A.rows x B.cols si no existe) y devuelve su id; no viaja ninguna matriz
+    String multiplyBlockFromFileToFile(long jobId, String aPath, int rowStart, int rowEnd, String bHandle,
+                                       String cPath, int threadCount) throws RemoteException;
+
+    // Métricas del servidor en texto plano (una por línea, "nombre{etiquetas} valor"): llamadas, bytes,
+    // percentiles de latencia por método, estado del pool ForkJoin, cola del scheduler y caché de B
+    String getMetrics() throws RemoteException;
 }
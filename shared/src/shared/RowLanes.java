@@ -0,0 +1,70 @@
+package shared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Paralelismo limitado sobre un ForkJoinPool compartido, sin crear un pool por llamada.
+ *
+ * Se lanzan 'lanes' tareas (carriles) que van cogiendo franjas de 'grain' filas de un contador común
+ * hasta agotar [rowStart, rowEnd): como mucho 'lanes' hilos del pool trabajan a la vez para la llamada
+ * y el resto del pool queda libre para otras. Las franjas salen alineadas a rowStart + k * grain.
+ */
+public final class RowLanes {
+    /** Cálculo de las filas [start, end). */
+    public interface RowRange {
+        void run(int start, int end);
+    }
+
+    private RowLanes() {}
+
+    /** Ejecuta body sobre todo el rango con como mucho 'lanes' hilos y espera a que termine. */
+    public static void invoke(ForkJoinPool pool, int rowStart, int rowEnd, int lanes, int grain, RowRange body) {
+        List<Lane> tasks = lanes(rowStart, rowEnd, lanes, grain, body);
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Como invoke pero sin esperar. body debe capturar sus propios errores: una excepción
+     * solo detiene el carril en que ocurre.
+     */
+    public static void execute(ForkJoinPool pool, int rowStart, int rowEnd, int lanes, int grain, RowRange body) {
+        for (Lane lane : lanes(rowStart, rowEnd, lanes, grain, body)) pool.execute(lane);
+    }
+
+    private static List<Lane> lanes(int rowStart, int rowEnd, int lanes, int grain, RowRange body) {
+        int g = Math.max(1, grain);
+        int pieces = (Math.max(0, rowEnd - rowStart) + g - 1) / g;
+        int count = Math.max(1, Math.min(lanes, pieces));
+        AtomicInteger next = new AtomicInteger(rowStart);
+        List<Lane> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) tasks.add(new Lane(next, rowEnd, g, body));
+        return tasks;
+    }
+
+    private static final class Lane extends RecursiveAction {
+        private final AtomicInteger next;
+        private final int rowEnd, grain;
+        private final RowRange body;
+
+        Lane(AtomicInteger next, int rowEnd, int grain, RowRange body) {
+            this.next = next; this.rowEnd = rowEnd; this.grain = grain; this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            int start;
+            while ((start = next.getAndAdd(grain)) < rowEnd) {
+                body.run(start, Math.min(rowEnd, start + grain));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package shared;
+
+import java.rmi.RemoteException;
+
+/**
+ * El servidor tiene la cola de cálculo llena (-Dserver.scheduler.maxQueued) y rechaza la llamada.
+ * No es un fallo del servidor: el cliente debe reintentar pasados retryAfterMillis o usar otro endpoint.
+ */
+public class ServerBusyException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public final int queued;
+    public final long retryAfterMillis;
+
+    public ServerBusyException(int queued, long retryAfterMillis) {
+        super("Servidor ocupado (" + queued + " peticiones en cola), reintentar en " + retryAfterMillis + " ms");
+        this.queued = queued;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
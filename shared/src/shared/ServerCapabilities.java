@@ -0,0 +1,29 @@
+package shared;
+
+import java.io.Serializable;
+
+/**
+ * Capacidad de cálculo de un endpoint, medida al arrancar (ver Calibration).
+ * gflops es el rendimiento equivalente en GFLOP/s (2 * n*m*p operaciones por multiplicación)
+ * usando todos los cores con el kernel configurado.
+ */
+public class ServerCapabilities implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final int cores;
+    public final long maxHeapBytes;
+    public final double gflops;
+    public final String kernelName;
+
+    public ServerCapabilities(int cores, long maxHeapBytes, double gflops, String kernelName) {
+        this.cores = cores;
+        this.maxHeapBytes = maxHeapBytes;
+        this.gflops = gflops;
+        this.kernelName = kernelName;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cores, heap %d MB, %.2f GFLOP/s (%s)", cores, maxHeapBytes / (1024 * 1024), gflops, kernelName);
+    }
+}
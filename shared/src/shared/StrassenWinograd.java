@@ -0,0 +1,167 @@
+package shared;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplicación Strassen-Winograd (7 productos y 15 sumas por nivel) como RecursiveTask.
+ *
+ * - Cada nivel parte las tres dimensiones por la mitad; se baja d niveles, los justos para que la
+ *   dimensión menor quede <= 'cutoff', y ahí se usa el kernel clásico por bloques.
+ * - Cada dimensión se rellena con ceros por separado hasta el múltiplo de 2^d siguiente (como mucho
+ *   2^d - 1 filas/columnas): una forma rectangular no se convierte en un cubo del lado mayor.
+ * - Si la dimensión menor ya es <= cutoff (d = 0, p. ej. 4096 x 64 x 4096) Strassen no ahorra nada y se
+ *   usa directamente el kernel clásico, repartiendo las filas en el pool.
+ * - Con int la aritmética es módulo 2^32, igual que el kernel clásico: el resultado es idéntico.
+ *
+ * El cutoff por defecto se puede ajustar con -Dmatrix.strassen.cutoff=... (ver client.StrassenBenchmark).
+ */
+public final class StrassenWinograd {
+    public static final int DEFAULT_CUTOFF = Integer.getInteger("matrix.strassen.cutoff", 512);
+    // Filas mínimas por tarea hoja del kernel clásico repartido
+    private static final int ROW_TILE = 16;
+
+    private StrassenWinograd() {}
+
+    // Multiplica A (n x m) x B (m x p) en el pool dado; cutoff <= 0 => DEFAULT_CUTOFF
+    public static Matrix multiply(ForkJoinPool pool, MatrixKernel kernel, Matrix A, Matrix B, int cutoff) {
+        if (A.cols() != B.rows())
+            throw new IllegalArgumentException("Dimensiones incompatibles: " + A.cols() + " != " + B.rows());
+        int useCutoff = (cutoff <= 0) ? DEFAULT_CUTOFF : Math.max(2, cutoff);
+        int n = A.rows(), m = A.cols(), p = B.cols();
+        int d = levels(Math.min(n, Math.min(m, p)), useCutoff);
+        if (d == 0) {
+            Matrix C = new Matrix(n, p);
+            pool.invoke(new RowsTask(kernel, A, B, C, 0, n, Math.max(ROW_TILE, n / (pool.getParallelism() * 4))));
+            return C;
+        }
+        int np = paddedSize(n, d), mp = paddedSize(m, d), pp = paddedSize(p, d);
+
+        Matrix Ap = pad(A, np, mp), Bp = pad(B, mp, pp);
+        Matrix Cp = pool.invoke(new Task(kernel, Ap, Bp, d));
+        return (np == n && pp == p) ? Cp : Cp.view(0, 0, n, p).compact();
+    }
+
+    // Niveles de recursión d: los mínimos para que ceil(size / 2^d) <= cutoff
+    static int levels(int size, int cutoff) {
+        int levels = 0;
+        while (ceilDiv(size, 1 << levels) > cutoff) levels++;
+        return levels;
+    }
+
+    // Menor múltiplo de 2^levels >= size
+    static int paddedSize(int size, int levels) {
+        return ceilDiv(size, 1 << levels) << levels;
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    private static Matrix pad(Matrix M, int rows, int cols) {
+        if (M.rows() == rows && M.cols() == cols) return M;
+        Matrix P = new Matrix(rows, cols);
+        for (int i = 0; i < M.rows(); i++) {
+            System.arraycopy(M.data(), M.index(i, 0), P.data(), P.index(i, 0), M.cols());
+        }
+        return P;
+    }
+
+    // Tarea recursiva sobre A (n x m) y B (m x p) con n, m y p múltiplos de 2^levels
+    private static final class Task extends RecursiveTask<Matrix> {
+        private final MatrixKernel kernel;
+        private final Matrix A, B;
+        private final int levels;
+
+        Task(MatrixKernel kernel, Matrix A, Matrix B, int levels) {
+            this.kernel = kernel; this.A = A; this.B = B; this.levels = levels;
+        }
+
+        @Override
+        protected Matrix compute() {
+            int n = A.rows(), m = A.cols(), p = B.cols();
+            if (levels == 0) {
+                Matrix C = new Matrix(n, p);
+                kernel.multiply(A, B, C, 0, n, 0);
+                return C;
+            }
+            int hn = n / 2, hm = m / 2, hp = p / 2;
+            Matrix A11 = A.view(0, 0, hn, hm), A12 = A.view(0, hm, hn, hm), A21 = A.view(hn, 0, hn, hm), A22 = A.view(hn, hm, hn, hm);
+            Matrix B11 = B.view(0, 0, hm, hp), B12 = B.view(0, hp, hm, hp), B21 = B.view(hm, 0, hm, hp), B22 = B.view(hm, hp, hm, hp);
+
+            Matrix S1 = add(A21, A22), S2 = sub(S1, A11), S3 = sub(A11, A21), S4 = sub(A12, S2);
+            Matrix T1 = sub(B12, B11), T2 = sub(B22, T1), T3 = sub(B22, B12), T4 = sub(T2, B21);
+
+            Task m1 = new Task(kernel, A11, B11, levels - 1);
+            Task m2 = new Task(kernel, A12, B21, levels - 1);
+            Task m3 = new Task(kernel, S4, B22, levels - 1);
+            Task m4 = new Task(kernel, A22, T4, levels - 1);
+            Task m5 = new Task(kernel, S1, T1, levels - 1);
+            Task m6 = new Task(kernel, S2, T2, levels - 1);
+            Task m7 = new Task(kernel, S3, T3, levels - 1);
+            invokeAll(m1, m2, m3, m4, m5, m6, m7);
+            Matrix M1 = m1.join(), M2 = m2.join(), M3 = m3.join(), M4 = m4.join();
+            Matrix M5 = m5.join(), M6 = m6.join(), M7 = m7.join();
+
+            Matrix C = new Matrix(n, p);
+            combine(M1, M2, 1, C.view(0, 0, hn, hp));    // C11 = M1 + M2
+            combine(M6, M1, 1, M6);                       // U2 = M1 + M6
+            combine(M7, M6, 1, M7);                       // U3 = U2 + M7
+            combine(M6, M5, 1, M6);                       // U4 = U2 + M5
+            combine(M6, M3, 1, C.view(0, hp, hn, hp));   // C12 = U4 + M3
+            combine(M7, M4, -1, C.view(hn, 0, hn, hp));  // C21 = U3 - M4
+            combine(M7, M5, 1, C.view(hn, hp, hn, hp));  // C22 = U3 + M5
+            return C;
+        }
+    }
+
+    // Kernel clásico repartiendo las filas [rowStart,rowEnd) en el pool (cuando Strassen no ahorra nada)
+    private static final class RowsTask extends RecursiveAction {
+        private final MatrixKernel kernel;
+        private final Matrix A, B, C;
+        private final int rowStart, rowEnd, threshold;
+
+        RowsTask(MatrixKernel kernel, Matrix A, Matrix B, Matrix C, int rowStart, int rowEnd, int threshold) {
+            this.kernel = kernel; this.A = A; this.B = B; this.C = C;
+            this.rowStart = rowStart; this.rowEnd = rowEnd; this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowEnd - rowStart <= threshold) {
+                kernel.multiply(A, B, C, rowStart, rowEnd, 0);
+                return;
+            }
+            int mid = (rowStart + rowEnd) >>> 1;
+            invokeAll(new RowsTask(kernel, A, B, C, rowStart, mid, threshold),
+                      new RowsTask(kernel, A, B, C, mid, rowEnd, threshold));
+        }
+    }
+
+    private static Matrix add(Matrix X, Matrix Y) {
+        Matrix Z = new Matrix(X.rows(), X.cols());
+        combine(X, Y, 1, Z);
+        return Z;
+    }
+
+    private static Matrix sub(Matrix X, Matrix Y) {
+        Matrix Z = new Matrix(X.rows(), X.cols());
+        combine(X, Y, -1, Z);
+        return Z;
+    }
+
+    // Z = X + sign * Y (Z puede ser X o Y)
+    private static void combine(Matrix X, Matrix Y, int sign, Matrix Z) {
+        int[] x = X.data(), y = Y.data(), z = Z.data();
+        int rows = X.rows(), cols = X.cols();
+        for (int i = 0; i < rows; i++) {
+            int xi = X.index(i, 0), yi = Y.index(i, 0), zi = Z.index(i, 0);
+            if (sign > 0) {
+                for (int j = 0; j < cols; j++) z[zi + j] = x[xi + j] + y[yi + j];
+            } else {
+                for (int j = 0; j < cols; j++) z[zi + j] = x[xi + j] - y[yi + j];
+            }
+        }
+    }
+}
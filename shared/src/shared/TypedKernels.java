@@ -0,0 +1,248 @@
+package shared;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multiplicación de TypedMatrix con un kernel especializado por tipo de acumulador (int, long, float, double).
+ *
+ * Mismo esquema que BlockedKernel (i-k-j por paneles l1Tile x l2Tile): el panel de B se convierte una vez
+ * al tipo del acumulador y cada tramo de fila de A se convierte al entrar en el panel, así el bucle interno
+ * es siempre acc[j] += a * panel[k][j] sobre arreglos primitivos del mismo tipo y el JIT lo vectoriza.
+ * La conversión cuesta O(panel) y se reparte entre todas las filas que lo usan.
+ *
+ * Tipos de resultado admitidos: INT32, INT64, FLOAT32 y FLOAT64, sin estrechar la entrada entera
+ * (INT64 no puede acumularse en INT32), ni FLOAT64 a FLOAT32, ni pasar de coma flotante a entero.
+ * Con resultType == null se elige el acumulador por defecto (defaultResultType), que no desborda para
+ * INT8 ni INT16 pero sí puede hacerlo para INT32 e INT64 con valores grandes (el resultado es módulo 2^64).
+ */
+public final class TypedKernels {
+    // Filas por tarea hoja al repartir en el pool
+    private static final int ROW_TILE = 16;
+
+    private TypedKernels() {}
+
+    /**
+     * Acumulador por defecto para A (n x m) x B (m x p) con elementos 'in':
+     * INT8 -> INT32 mientras m * 2^14 quepa en int, si no INT64; INT16/INT32/INT64 -> INT64;
+     * FLOAT32 -> FLOAT32; FLOAT64 -> FLOAT64.
+     * Cota real: INT8 e INT16 nunca desbordan (m * 2^30 < 2^63). INT32 -> INT64 solo es exacto mientras
+     * m * max|a| * max|b| <= Long.MAX_VALUE (con elementos de todo el rango int basta m = 2 para desbordar);
+     * INT64 -> INT64 puede desbordar con cualquier m. Al desbordar, el resultado es módulo 2^64, como long en Java.
+     */
+    public static ElementType defaultResultType(ElementType in, int m) {
+        switch (in) {
+            case INT8: return ((long) m * 128 * 128 <= Integer.MAX_VALUE) ? ElementType.INT32 : ElementType.INT64;
+            case INT16:
+            case INT32:
+            case INT64: return ElementType.INT64;
+            default: return in;
+        }
+    }
+
+    // Multiplica en el pool repartiendo las filas; resultType == null => defaultResultType
+    public static TypedMatrix multiply(ForkJoinPool pool, TypedMatrix A, TypedMatrix B, ElementType resultType) {
+        ElementType rt = checkedResultType(A, B, resultType);
+        TypedMatrix C = TypedMatrix.zeros(rt, A.rows(), B.cols());
+        int threshold = Math.max(ROW_TILE, A.rows() / (pool.getParallelism() * 4));
+        pool.invoke(new RowsTask(A, B, C, 0, A.rows(), threshold));
+        return C;
+    }
+
+    // Acumula en C (ya creada con el tipo del resultado) las filas [rowStart,rowEnd) de A x B, en el hilo actual
+    public static void multiplyRows(TypedMatrix A, TypedMatrix B, TypedMatrix C, int rowStart, int rowEnd) {
+        if (rowStart >= rowEnd) return;
+        switch (C.type()) {
+            case INT32: multiplyInt(A, B, C.ints(), rowStart, rowEnd); break;
+            case INT64: multiplyLong(A, B, C.longs(), rowStart, rowEnd); break;
+            case FLOAT32: multiplyFloat(A, B, C.floats(), rowStart, rowEnd); break;
+            case FLOAT64: multiplyDouble(A, B, C.doubles(), rowStart, rowEnd); break;
+            default: throw new IllegalArgumentException("Tipo de resultado no admitido: " + C.type());
+        }
+    }
+
+    static ElementType checkedResultType(TypedMatrix A, TypedMatrix B, ElementType resultType) {
+        if (A.cols() != B.rows())
+            throw new IllegalArgumentException("Dimensiones incompatibles: " + A.cols() + " != " + B.rows());
+        if (A.type() != B.type())
+            throw new IllegalArgumentException("A y B deben tener el mismo tipo: " + A.type() + " != " + B.type());
+        ElementType in = A.type();
+        ElementType rt = (resultType == null) ? defaultResultType(in, A.cols()) : resultType;
+        if (!rt.isAccumulator())
+            throw new IllegalArgumentException("Tipo de resultado no admitido: " + rt);
+        boolean narrowing = rt.floatingPoint ? (in.floatingPoint && in.bytes > rt.bytes) : (in.floatingPoint || in.bytes > rt.bytes);
+        if (narrowing)
+            throw new IllegalArgumentException("No se puede acumular " + in + " en " + rt);
+        return rt;
+    }
+
+    private static final class RowsTask extends RecursiveAction {
+        private final TypedMatrix A, B, C;
+        private final int rowStart, rowEnd, threshold;
+
+        RowsTask(TypedMatrix A, TypedMatrix B, TypedMatrix C, int rowStart, int rowEnd, int threshold) {
+            this.A = A; this.B = B; this.C = C;
+            this.rowStart = rowStart; this.rowEnd = rowEnd; this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowEnd - rowStart <= threshold) {
+                multiplyRows(A, B, C, rowStart, rowEnd);
+            } else {
+                int mid = (rowStart + rowEnd) / 2;
+                invokeAll(new RowsTask(A, B, C, rowStart, mid, threshold), new RowsTask(A, B, C, mid, rowEnd, threshold));
+            }
+        }
+    }
+
+    // --- kernels por acumulador (mismo bucle, distinto tipo primitivo) ---
+
+    private static void multiplyInt(TypedMatrix A, TypedMatrix B, int[] c, int rowStart, int rowEnd) {
+        int m = B.rows(), p = B.cols();
+        int l1 = BlockedKernel.defaults().l1Tile(), l2 = BlockedKernel.defaults().l2Tile();
+        int[][] panel = new int[Math.min(l2, m)][Math.min(l1, p)];
+        int[] aBuf = new int[Math.min(l2, m)];
+        int[] acc = new int[Math.min(l1, p)];
+        for (int jj = 0; jj < p; jj += l1) {
+            int len = Math.min(p, jj + l1) - jj;
+            for (int kk = 0; kk < m; kk += l2) {
+                int kLen = Math.min(m, kk + l2) - kk;
+                for (int k = 0; k < kLen; k++) widen(B, (kk + k) * p + jj, len, panel[k]);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    widen(A, i * m + kk, kLen, aBuf);
+                    int cIdx = i * p + jj;
+                    System.arraycopy(c, cIdx, acc, 0, len);
+                    for (int k = 0; k < kLen; k++) {
+                        int av = aBuf[k];
+                        int[] Pk = panel[k];
+                        for (int j = 0; j < len; j++) acc[j] += av * Pk[j];
+                    }
+                    System.arraycopy(acc, 0, c, cIdx, len);
+                }
+            }
+        }
+    }
+
+    private static void multiplyLong(TypedMatrix A, TypedMatrix B, long[] c, int rowStart, int rowEnd) {
+        int m = B.rows(), p = B.cols();
+        int l1 = BlockedKernel.defaults().l1Tile(), l2 = BlockedKernel.defaults().l2Tile();
+        long[][] panel = new long[Math.min(l2, m)][Math.min(l1, p)];
+        long[] aBuf = new long[Math.min(l2, m)];
+        long[] acc = new long[Math.min(l1, p)];
+        for (int jj = 0; jj < p; jj += l1) {
+            int len = Math.min(p, jj + l1) - jj;
+            for (int kk = 0; kk < m; kk += l2) {
+                int kLen = Math.min(m, kk + l2) - kk;
+                for (int k = 0; k < kLen; k++) widen(B, (kk + k) * p + jj, len, panel[k]);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    widen(A, i * m + kk, kLen, aBuf);
+                    int cIdx = i * p + jj;
+                    System.arraycopy(c, cIdx, acc, 0, len);
+                    for (int k = 0; k < kLen; k++) {
+                        long av = aBuf[k];
+                        long[] Pk = panel[k];
+                        for (int j = 0; j < len; j++) acc[j] += av * Pk[j];
+                    }
+                    System.arraycopy(acc, 0, c, cIdx, len);
+                }
+            }
+        }
+    }
+
+    private static void multiplyFloat(TypedMatrix A, TypedMatrix B, float[] c, int rowStart, int rowEnd) {
+        int m = B.rows(), p = B.cols();
+        int l1 = BlockedKernel.defaults().l1Tile(), l2 = BlockedKernel.defaults().l2Tile();
+        float[][] panel = new float[Math.min(l2, m)][Math.min(l1, p)];
+        float[] aBuf = new float[Math.min(l2, m)];
+        float[] acc = new float[Math.min(l1, p)];
+        for (int jj = 0; jj < p; jj += l1) {
+            int len = Math.min(p, jj + l1) - jj;
+            for (int kk = 0; kk < m; kk += l2) {
+                int kLen = Math.min(m, kk + l2) - kk;
+                for (int k = 0; k < kLen; k++) widen(B, (kk + k) * p + jj, len, panel[k]);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    widen(A, i * m + kk, kLen, aBuf);
+                    int cIdx = i * p + jj;
+                    System.arraycopy(c, cIdx, acc, 0, len);
+                    for (int k = 0; k < kLen; k++) {
+                        float av = aBuf[k];
+                        float[] Pk = panel[k];
+                        for (int j = 0; j < len; j++) acc[j] += av * Pk[j];
+                    }
+                    System.arraycopy(acc, 0, c, cIdx, len);
+                }
+            }
+        }
+    }
+
+    private static void multiplyDouble(TypedMatrix A, TypedMatrix B, double[] c, int rowStart, int rowEnd) {
+        int m = B.rows(), p = B.cols();
+        int l1 = BlockedKernel.defaults().l1Tile(), l2 = BlockedKernel.defaults().l2Tile();
+        double[][] panel = new double[Math.min(l2, m)][Math.min(l1, p)];
+        double[] aBuf = new double[Math.min(l2, m)];
+        double[] acc = new double[Math.min(l1, p)];
+        for (int jj = 0; jj < p; jj += l1) {
+            int len = Math.min(p, jj + l1) - jj;
+            for (int kk = 0; kk < m; kk += l2) {
+                int kLen = Math.min(m, kk + l2) - kk;
+                for (int k = 0; k < kLen; k++) widen(B, (kk + k) * p + jj, len, panel[k]);
+                for (int i = rowStart; i < rowEnd; i++) {
+                    widen(A, i * m + kk, kLen, aBuf);
+                    int cIdx = i * p + jj;
+                    System.arraycopy(c, cIdx, acc, 0, len);
+                    for (int k = 0; k < kLen; k++) {
+                        double av = aBuf[k];
+                        double[] Pk = panel[k];
+                        for (int j = 0; j < len; j++) acc[j] += av * Pk[j];
+                    }
+                    System.arraycopy(acc, 0, c, cIdx, len);
+                }
+            }
+        }
+    }
+
+    // --- conversión de un tramo [from, from+len) al tipo del acumulador ---
+
+    private static void widen(TypedMatrix M, int from, int len, int[] dest) {
+        switch (M.type()) {
+            case INT8: { byte[] s = M.bytes(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT16: { short[] s = M.shorts(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT32: System.arraycopy(M.ints(), from, dest, 0, len); break;
+            default: throw new IllegalArgumentException("No se puede acumular " + M.type() + " en INT32");
+        }
+    }
+
+    private static void widen(TypedMatrix M, int from, int len, long[] dest) {
+        switch (M.type()) {
+            case INT8: { byte[] s = M.bytes(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT16: { short[] s = M.shorts(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT32: { int[] s = M.ints(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT64: System.arraycopy(M.longs(), from, dest, 0, len); break;
+            default: throw new IllegalArgumentException("No se puede acumular " + M.type() + " en INT64");
+        }
+    }
+
+    private static void widen(TypedMatrix M, int from, int len, float[] dest) {
+        switch (M.type()) {
+            case INT8: { byte[] s = M.bytes(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT16: { short[] s = M.shorts(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT32: { int[] s = M.ints(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT64: { long[] s = M.longs(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case FLOAT32: System.arraycopy(M.floats(), from, dest, 0, len); break;
+            default: throw new IllegalArgumentException("No se puede acumular " + M.type() + " en FLOAT32");
+        }
+    }
+
+    private static void widen(TypedMatrix M, int from, int len, double[] dest) {
+        switch (M.type()) {
+            case INT8: { byte[] s = M.bytes(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT16: { short[] s = M.shorts(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT32: { int[] s = M.ints(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case INT64: { long[] s = M.longs(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case FLOAT32: { float[] s = M.floats(); for (int t = 0; t < len; t++) dest[t] = s[from + t]; break; }
+            case FLOAT64: System.arraycopy(M.doubles(), from, dest, 0, len); break;
+            default: throw new IllegalArgumentException("No se puede acumular " + M.type() + " en FLOAT64");
+        }
+    }
+}
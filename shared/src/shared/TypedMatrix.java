@@ -0,0 +1,114 @@
+package shared;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * Matriz en orden por filas con un tipo de elemento elegible (ver ElementType), guardada en el arreglo
+ * primitivo de ese tipo: byte[], short[], int[], long[], float[] o double[] (sin boxing).
+ * Los tipos estrechos (INT8/INT16) ocupan 2-4 veces menos memoria y red que int.
+ */
+public final class TypedMatrix implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ElementType type;
+    private final int rows;
+    private final int cols;
+    private final Object data;
+
+    private TypedMatrix(ElementType type, int rows, int cols, Object data) {
+        this.type = type;
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+        if (rows < 0 || cols < 0 || (long) rows * cols != java.lang.reflect.Array.getLength(data))
+            throw new IllegalArgumentException("Dimensiones inválidas: " + rows + "x" + cols);
+    }
+
+    public static TypedMatrix zeros(ElementType type, int rows, int cols) {
+        int size = checkedSize(rows, cols);
+        switch (type) {
+            case INT8: return new TypedMatrix(type, rows, cols, new byte[size]);
+            case INT16: return new TypedMatrix(type, rows, cols, new short[size]);
+            case INT32: return new TypedMatrix(type, rows, cols, new int[size]);
+            case INT64: return new TypedMatrix(type, rows, cols, new long[size]);
+            case FLOAT32: return new TypedMatrix(type, rows, cols, new float[size]);
+            default: return new TypedMatrix(type, rows, cols, new double[size]);
+        }
+    }
+
+    // Envuelven el arreglo dado (sin copiarlo)
+    public static TypedMatrix of(byte[] data, int rows, int cols) { return new TypedMatrix(ElementType.INT8, rows, cols, data); }
+    public static TypedMatrix of(short[] data, int rows, int cols) { return new TypedMatrix(ElementType.INT16, rows, cols, data); }
+    public static TypedMatrix of(int[] data, int rows, int cols) { return new TypedMatrix(ElementType.INT32, rows, cols, data); }
+    public static TypedMatrix of(long[] data, int rows, int cols) { return new TypedMatrix(ElementType.INT64, rows, cols, data); }
+    public static TypedMatrix of(float[] data, int rows, int cols) { return new TypedMatrix(ElementType.FLOAT32, rows, cols, data); }
+    public static TypedMatrix of(double[] data, int rows, int cols) { return new TypedMatrix(ElementType.FLOAT64, rows, cols, data); }
+
+    public ElementType type() { return type; }
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+
+    // Arreglo subyacente; lanza IllegalStateException si el tipo no coincide
+    public byte[] bytes() { return (byte[]) array(ElementType.INT8); }
+    public short[] shorts() { return (short[]) array(ElementType.INT16); }
+    public int[] ints() { return (int[]) array(ElementType.INT32); }
+    public long[] longs() { return (long[]) array(ElementType.INT64); }
+    public float[] floats() { return (float[]) array(ElementType.FLOAT32); }
+    public double[] doubles() { return (double[]) array(ElementType.FLOAT64); }
+
+    // Elemento (i,j) como double, sea cual sea el tipo (para comprobaciones y conversiones)
+    public double getDouble(int i, int j) {
+        int idx = i * cols + j;
+        switch (type) {
+            case INT8: return ((byte[]) data)[idx];
+            case INT16: return ((short[]) data)[idx];
+            case INT32: return ((int[]) data)[idx];
+            case INT64: return ((long[]) data)[idx];
+            case FLOAT32: return ((float[]) data)[idx];
+            default: return ((double[]) data)[idx];
+        }
+    }
+
+    // Elemento (i,j) como long; solo tipos enteros
+    public long getLong(int i, int j) {
+        int idx = i * cols + j;
+        switch (type) {
+            case INT8: return ((byte[]) data)[idx];
+            case INT16: return ((short[]) data)[idx];
+            case INT32: return ((int[]) data)[idx];
+            case INT64: return ((long[]) data)[idx];
+            default: throw new IllegalStateException("getLong sobre una matriz " + type);
+        }
+    }
+
+    private Object array(ElementType expected) {
+        if (type != expected) throw new IllegalStateException("La matriz es " + type + ", no " + expected);
+        return data;
+    }
+
+    private static int checkedSize(int rows, int cols) {
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Dimensiones inválidas: " + rows + "x" + cols);
+        return rows * cols;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        Class<?> expected;
+        switch (type == null ? ElementType.INT32 : type) {
+            case INT8: expected = byte[].class; break;
+            case INT16: expected = short[].class; break;
+            case INT32: expected = int[].class; break;
+            case INT64: expected = long[].class; break;
+            case FLOAT32: expected = float[].class; break;
+            default: expected = double[].class;
+        }
+        if (type == null || data == null || data.getClass() != expected || rows < 0 || cols < 0
+                || (long) rows * cols != java.lang.reflect.Array.getLength(data)) {
+            throw new InvalidObjectException("TypedMatrix corrupta: " + type + " " + rows + "x" + cols);
+        }
+    }
+}
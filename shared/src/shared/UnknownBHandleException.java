@@ -0,0 +1,19 @@
+package shared;
+
+import java.rmi.RemoteException;
+
+/**
+ * El handle pasado a multiplyBlockPrepared no existe en el servidor (nunca se preparó,
+ * caducó o fue expulsado por el límite de memoria, antes que ninguna si se liberó con clearPreparedB).
+ * El cliente puede volver a llamar a prepareB o enviar B con multiplyBlock.
+ */
+public class UnknownBHandleException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public final String handle;
+
+    public UnknownBHandleException(String handle) {
+        super("B no preparada en el servidor (handle desconocido o caducado): " + handle);
+        this.handle = handle;
+    }
+}